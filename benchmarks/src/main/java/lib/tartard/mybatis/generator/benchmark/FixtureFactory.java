@@ -0,0 +1,149 @@
+package lib.tartard.mybatis.generator.benchmark;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the records of the fixture tables, for one variant of the generated models.
+ * <p>
+ * The values of the records are defined once, by column property, and set through the setters of the models of the
+ * variant package, both variants being generated from the same schema. The records are only built when the
+ * benchmarks are set up, outside of the measured code.
+ *
+ * @author Alexandre Hausherr
+ */
+public final class FixtureFactory {
+
+    private static final String BENCHMARK_PACKAGE = "lib.tartard.mybatis.generator.benchmark";
+
+    private static final int PAYLOAD_SIZE = 4096;
+
+    private final String modelPackage;
+
+    private FixtureFactory(String modelPackage) {
+        this.modelPackage = modelPackage;
+    }
+
+    public static FixtureFactory forVariant(String variant) {
+        switch (variant) {
+            case "tuned":
+            case "baseline":
+                return new FixtureFactory(BENCHMARK_PACKAGE + "." + variant);
+            default:
+                throw new IllegalArgumentException("Unknown variant " + variant);
+        }
+    }
+
+    /**
+     * Builds a record of the table.
+     * @param table narrow, wide or blob
+     * @param id the primary key of the record, all the other values being derived from it
+     * @param altered if true, the last column of the table holds a different value
+     * @return
+     */
+    public Object create(String table, long id, boolean altered) {
+        Class<?> modelClass = getModelClass(table);
+        try {
+            Object record = modelClass.getConstructor().newInstance();
+            for (Map.Entry<String, Object> value : row(table, id, altered).entrySet()) {
+                getSetter(modelClass, value.getKey()).invoke(record, value.getValue());
+            }
+            return record;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot build a record of " + modelClass.getName(), e);
+        }
+    }
+
+    /**
+     * Returns the model class of the table.
+     * @param table narrow, wide or blob
+     * @return
+     */
+    public Class<?> getModelClass(String table) {
+        String className;
+        switch (table) {
+            case "narrow":
+                className = "NarrowItem";
+                break;
+            case "wide":
+                className = "WideItem";
+                break;
+            case "blob":
+                className = "BlobItem";
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown table " + table);
+        }
+        try {
+            return Class.forName(modelPackage + "." + className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("The models of " + modelPackage + " have not been generated", e);
+        }
+    }
+
+    private static Method getSetter(Class<?> modelClass, String property) throws NoSuchMethodException {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : modelClass.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1) {
+                return method;
+            }
+        }
+        throw new NoSuchMethodException(modelClass.getName() + "." + name);
+    }
+
+    /**
+     * Values of a record of the table, by column property, in the order of the columns.
+     * @param table
+     * @param id
+     * @param altered
+     * @return
+     */
+    private static Map<String, Object> row(String table, long id, boolean altered) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        switch (table) {
+            case "narrow":
+                row.put("code", "CODE-" + id);
+                row.put("amount", altered ? -1 : (int) (id * 31));
+                break;
+            case "wide":
+                row.put("tenantId", (int) (id % 16));
+                row.put("status", id % 2 == 0 ? "ACTIVE" : "CLOSED");
+                row.put("country", "FR");
+                row.put("firstName", "First" + id);
+                row.put("lastName", "Last" + id);
+                row.put("email", "first.last" + id + "@example.com");
+                row.put("phone", "+33 1 23 45 67 89");
+                row.put("street", id + " rue de la Paix");
+                row.put("city", "Paris");
+                row.put("zipCode", "75002");
+                row.put("age", (int) (20 + id % 50));
+                row.put("score", id / 7.0);
+                row.put("balance", BigDecimal.valueOf(id * 100 + 99, 2));
+                row.put("active", id % 3 != 0);
+                row.put("created", new Date(altered ? 0L : 1_500_000_000_000L + id));
+                break;
+            case "blob":
+                row.put("title", "Title " + id);
+                char[] notes = new char[PAYLOAD_SIZE];
+                Arrays.fill(notes, 'n');
+                row.put("notes", new String(notes));
+                byte[] payload = new byte[PAYLOAD_SIZE];
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] = (byte) (id + i);
+                }
+                if (altered) {
+                    payload[payload.length - 1]++;
+                }
+                row.put("payload", payload);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown table " + table);
+        }
+        return row;
+    }
+}
@@ -0,0 +1,58 @@
+package lib.tartard.mybatis.generator.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization and deserialization of the tuned and baseline models.
+ *
+ * @author Alexandre Hausherr
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    @Param({"tuned", "baseline"})
+    public String variant;
+
+    @Param({"narrow", "wide", "blob"})
+    public String table;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Object record;
+
+    private Class<?> modelClass;
+
+    private byte[] json;
+
+    @Setup
+    public void setup() throws IOException {
+        FixtureFactory fixtures = FixtureFactory.forVariant(variant);
+        record = fixtures.create(table, 42L, false);
+        modelClass = fixtures.getModelClass(table);
+        json = mapper.writeValueAsBytes(record);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(record);
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        return mapper.readValue(json, modelClass);
+    }
+
+    @Benchmark
+    public Object roundTrip() throws IOException {
+        return mapper.readValue(mapper.writeValueAsBytes(record), modelClass);
+    }
+}
@@ -0,0 +1,59 @@
+package lib.tartard.mybatis.generator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * hashCode, equals and toString of the tuned and baseline models.
+ *
+ * @author Alexandre Hausherr
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModelBenchmark {
+
+    @Param({"tuned", "baseline"})
+    public String variant;
+
+    @Param({"narrow", "wide", "blob"})
+    public String table;
+
+    private Object record;
+
+    private Object equalRecord;
+
+    private Object alteredRecord;
+
+    @Setup
+    public void setup() {
+        FixtureFactory fixtures = FixtureFactory.forVariant(variant);
+        record = fixtures.create(table, 42L, false);
+        equalRecord = fixtures.create(table, 42L, false);
+        alteredRecord = fixtures.create(table, 42L, true);
+    }
+
+    @Benchmark
+    public int hashCodeBenchmark() {
+        return record.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return record.equals(equalRecord);
+    }
+
+    @Benchmark
+    public boolean equalsAltered() {
+        return record.equals(alteredRecord);
+    }
+
+    @Benchmark
+    public String toStringBenchmark() {
+        return record.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package lib.tartard.mybatis.generator.benchmark;
+
+import lib.tartard.mybatis.generator.benchmark.tuned.NarrowItem;
+import lib.tartard.mybatis.generator.benchmark.tuned.WideItem;
+import org.openjdk.jmh.annotations.*;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generated validate() methods of the tuned models, compared to a Bean Validation provider checking the same
+ * annotations.
+ *
+ * @author Alexandre Hausherr
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private final FixtureFactory fixtures = FixtureFactory.forVariant("tuned");
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private NarrowItem narrow;
+
+    private WideItem wide;
+
+    @Setup
+    public void setup() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        narrow = (NarrowItem) fixtures.create("narrow", 42L, false);
+        wide = (WideItem) fixtures.create("wide", 42L, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Object generatedNarrow() {
+        return narrow.validate();
+    }
+
+    @Benchmark
+    public boolean generatedFailFastNarrow() {
+        return NarrowItem.validate(narrow, null);
+    }
+
+    @Benchmark
+    public Object beanValidationNarrow() {
+        return validator.validate(narrow);
+    }
+
+    @Benchmark
+    public Object generatedWide() {
+        return wide.validate();
+    }
+
+    @Benchmark
+    public boolean generatedFailFastWide() {
+        return WideItem.validate(wide, null);
+    }
+
+    @Benchmark
+    public Object beanValidationWide() {
+        return validator.validate(wide);
+    }
+}
@@ -0,0 +1,33 @@
+-- Fixture schema of the benchmarks: a narrow table, a wide table and a BLOB heavy table.
+
+CREATE TABLE narrow_item (
+    id BIGINT NOT NULL PRIMARY KEY,
+    code VARCHAR(16) NOT NULL,
+    amount INT
+);
+
+CREATE TABLE wide_item (
+    id BIGINT NOT NULL PRIMARY KEY,
+    tenant_id INT NOT NULL,
+    status VARCHAR(8) NOT NULL,
+    country VARCHAR(2),
+    first_name VARCHAR(64) NOT NULL,
+    last_name VARCHAR(64) NOT NULL,
+    email VARCHAR(128),
+    phone VARCHAR(32),
+    street VARCHAR(128),
+    city VARCHAR(64),
+    zip_code VARCHAR(16),
+    age INT,
+    score DOUBLE,
+    balance DECIMAL(12, 2),
+    active BOOLEAN NOT NULL,
+    created TIMESTAMP NOT NULL
+);
+
+CREATE TABLE blob_item (
+    id BIGINT NOT NULL PRIMARY KEY,
+    title VARCHAR(200) NOT NULL,
+    notes CLOB,
+    payload BLOB
+);
@@ -0,0 +1,333 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.Element;
+import org.mybatis.generator.api.dom.xml.TextElement;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.config.GeneratedKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.mybatis.generator.codegen.mybatis3.ListUtilities.removeIdentityAndGeneratedAlwaysColumns;
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getEscapedColumnName;
+import static org.mybatis.generator.codegen.mybatis3.MyBatis3FormattingUtilities.getParameterClause;
+import static org.mybatis.generator.internal.util.StringUtility.escapeStringForJava;
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * Add a <code>batchInsert</code> method to the clients, inserting a list of records with a single multi-row
+ * <code>insert ... values (...), (...)</code> statement. The columns are the ones of the generated <code>insert</code>
+ * statement. When the generated key of the table is retrieved with JDBC, the keys of the records are set as well, if
+ * the driver returns the keys of all the rows.
+ * <p>
+ * As the number of parameters of a statement is limited by the drivers, the client also gets
+ * <code>batchInsertInChunks</code> default methods, splitting the records in chunks inserted one by one. The default
+ * chunk size is set by the <code>chunkSize</code> property (500 by default), and lowered for wide tables when the
+ * <code>maxParameters</code> property is set, so that a chunk never has more parameters than the driver accepts.
+ * Both properties can be overridden by the properties of the same name of a table.
+ * <p>
+ * A multi-row insert needs at least one row: <code>batchInsert</code> must not be called with an empty list, while
+ * <code>batchInsertInChunks</code> returns 0 without calling the database. The chunk size given to
+ * <code>batchInsertInChunks</code> must be positive, an <code>IllegalArgumentException</code> is thrown otherwise.
+ *
+ * @author Alexandre Hausherr
+ * @version 1
+ */
+public class BatchInsertPlugin extends PluginAdapter {
+
+    private static final String BATCH_INSERT = "batchInsert";
+
+    private static final String BATCH_INSERT_IN_CHUNKS = "batchInsertInChunks";
+
+    private static final String RECORDS = "records";
+
+    private static final String RECORD = "record";
+
+    private static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final FullyQualifiedJavaType PARAM = new FullyQualifiedJavaType("org.apache.ibatis.annotations.Param");
+    private static final FullyQualifiedJavaType INSERT = new FullyQualifiedJavaType("org.apache.ibatis.annotations.Insert");
+    private static final FullyQualifiedJavaType OPTIONS = new FullyQualifiedJavaType("org.apache.ibatis.annotations.Options");
+
+    private int chunkSize;
+
+    private int maxParameters;
+
+
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        chunkSize = getIntProperty(properties.getProperty("chunkSize"), DEFAULT_CHUNK_SIZE);
+        maxParameters = getIntProperty(properties.getProperty("maxParameters"), 0);
+    }
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        if(chunkSize <= 0) {
+            warnings.add("BatchInsertPlugin: chunkSize must be a positive integer");
+            return false;
+        }
+        if(maxParameters < 0) {
+            warnings.add("BatchInsertPlugin: maxParameters must be a positive integer");
+            return false;
+        }
+        return true;
+    }
+
+    private static int getIntProperty(String value, int defaultValue) {
+        if(!stringHasValue(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch(NumberFormatException e) {
+            return -1;
+        }
+    }
+
+
+    /**
+     * Add the batch methods to the client, with an annotated statement when the insert statement is annotated.
+     * @param interfaze
+     * @param topLevelClass
+     * @param introspectedTable
+     * @return
+     */
+    @Override
+    public boolean clientGenerated(Interface interfaze, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        Method insert = findMethod(interfaze, introspectedTable.getInsertStatementId());
+        if(insert == null) {
+            return true;
+        }
+        FullyQualifiedJavaType recordType = introspectedTable.getRules().calculateAllFieldsClass();
+        FullyQualifiedJavaType listType = FullyQualifiedJavaType.getNewListInstance();
+        listType.addTypeArgument(recordType);
+        interfaze.addImportedType(FullyQualifiedJavaType.getNewListInstance());
+        interfaze.addImportedType(recordType);
+
+        Method batchInsert = new Method(BATCH_INSERT);
+        batchInsert.setVisibility(JavaVisibility.PUBLIC);
+        batchInsert.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        batchInsert.addParameter(new Parameter(listType, RECORDS, "@Param(\"" + RECORDS + "\")"));
+        interfaze.addImportedType(PARAM);
+        context.getCommentGenerator().addGeneralMethodComment(batchInsert, introspectedTable);
+        addJavaDocLine(batchInsert, "The list of records must not be empty, see " + BATCH_INSERT_IN_CHUNKS + ".");
+        if(!insert.getAnnotations().isEmpty()) {
+            addInsertAnnotations(batchInsert, interfaze, introspectedTable);
+        }
+        interfaze.addMethod(batchInsert);
+
+        Method inChunks = new Method(BATCH_INSERT_IN_CHUNKS);
+        inChunks.setVisibility(JavaVisibility.PUBLIC);
+        inChunks.setDefault(true);
+        inChunks.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        inChunks.addParameter(new Parameter(listType, RECORDS));
+        inChunks.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "chunkSize"));
+        context.getCommentGenerator().addGeneralMethodComment(inChunks, introspectedTable);
+        inChunks.addBodyLine("if (chunkSize <= 0) {");
+        inChunks.addBodyLine("throw new IllegalArgumentException(\"chunkSize must be a positive integer: \" + chunkSize);");
+        inChunks.addBodyLine("}");
+        inChunks.addBodyLine("if (" + RECORDS + ".isEmpty()) {");
+        inChunks.addBodyLine("return 0;");
+        inChunks.addBodyLine("}");
+        inChunks.addBodyLine("int count = 0;");
+        inChunks.addBodyLine("for (int from = 0; from < " + RECORDS + ".size(); from += chunkSize) {");
+        inChunks.addBodyLine("count += " + BATCH_INSERT + "(" + RECORDS + ".subList(from, Math.min(from + chunkSize, " + RECORDS + ".size())));");
+        inChunks.addBodyLine("}");
+        inChunks.addBodyLine("return count;");
+        interfaze.addMethod(inChunks);
+
+        Method inDefaultChunks = new Method(BATCH_INSERT_IN_CHUNKS);
+        inDefaultChunks.setVisibility(JavaVisibility.PUBLIC);
+        inDefaultChunks.setDefault(true);
+        inDefaultChunks.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        inDefaultChunks.addParameter(new Parameter(listType, RECORDS));
+        context.getCommentGenerator().addGeneralMethodComment(inDefaultChunks, introspectedTable);
+        inDefaultChunks.addBodyLine("return " + BATCH_INSERT_IN_CHUNKS + "(" + RECORDS + ", " + getChunkSize(introspectedTable) + ");");
+        interfaze.addMethod(inDefaultChunks);
+        return true;
+    }
+
+    /**
+     * Add the batch statement to the sql map, when the insert statement is in the sql map.
+     * @param document
+     * @param introspectedTable
+     * @return
+     */
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        XmlElement root = document.getRootElement();
+        if(findStatement(root, introspectedTable.getInsertStatementId()) == null) {
+            return true;
+        }
+
+        XmlElement answer = new XmlElement("insert");
+        answer.addAttribute(new Attribute("id", BATCH_INSERT));
+        answer.addAttribute(new Attribute("parameterType", "map"));
+        IntrospectedColumn keyColumn = getJdbcGeneratedKeyColumn(introspectedTable);
+        if(keyColumn != null) {
+            answer.addAttribute(new Attribute("useGeneratedKeys", "true"));
+            answer.addAttribute(new Attribute("keyProperty", RECORDS + "." + keyColumn.getJavaProperty()));
+            answer.addAttribute(new Attribute("keyColumn", keyColumn.getActualColumnName()));
+        }
+        context.getCommentGenerator().addComment(answer);
+
+        for(String line : getInsertLines(introspectedTable)) {
+            answer.addElement(new TextElement(line));
+        }
+        XmlElement foreach = new XmlElement("foreach");
+        foreach.addAttribute(new Attribute("collection", RECORDS));
+        foreach.addAttribute(new Attribute("item", RECORD));
+        foreach.addAttribute(new Attribute("separator", ","));
+        for(String line : getValuesLines(introspectedTable)) {
+            foreach.addElement(new TextElement(line));
+        }
+        answer.addElement(foreach);
+
+        root.addElement(answer);
+        return true;
+    }
+
+
+    /**
+     * Add a line to the javadoc of a method, after the opening line of the comment of the comment generator if any.
+     * @param method
+     * @param line
+     */
+    private static void addJavaDocLine(Method method, String line) {
+        List<String> javaDocLines = method.getJavaDocLines();
+        if(javaDocLines.isEmpty()) {
+            method.addJavaDocLine("/**");
+            method.addJavaDocLine(" * " + line);
+            method.addJavaDocLine(" */");
+        } else {
+            javaDocLines.add(1, " * " + line);
+        }
+    }
+
+    private void addInsertAnnotations(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        List<String> lines = new ArrayList<>();
+        lines.add("<script>");
+        lines.addAll(getInsertLines(introspectedTable));
+        lines.add("<foreach collection=\"" + RECORDS + "\" item=\"" + RECORD + "\" separator=\",\">");
+        lines.addAll(getValuesLines(introspectedTable));
+        lines.add("</foreach>");
+        lines.add("</script>");
+
+        method.addAnnotation("@Insert({");
+        for(int i = 0; i < lines.size(); i++) {
+            method.addAnnotation("    \"" + escapeStringForJava(lines.get(i)) + "\"" + (i < lines.size() - 1 ? "," : ""));
+        }
+        method.addAnnotation("})");
+        interfaze.addImportedType(INSERT);
+
+        IntrospectedColumn keyColumn = getJdbcGeneratedKeyColumn(introspectedTable);
+        if(keyColumn != null) {
+            method.addAnnotation("@Options(useGeneratedKeys = true, keyProperty = \"" + RECORDS + "." + keyColumn.getJavaProperty()
+                    + "\", keyColumn = \"" + escapeStringForJava(keyColumn.getActualColumnName()) + "\")");
+            interfaze.addImportedType(OPTIONS);
+        }
+    }
+
+    private static List<String> getInsertLines(IntrospectedTable introspectedTable) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder sb = new StringBuilder("insert into ").append(introspectedTable.getFullyQualifiedTableNameAtRuntime()).append(" (");
+        List<IntrospectedColumn> columns = removeIdentityAndGeneratedAlwaysColumns(introspectedTable.getAllColumns());
+        for(int i = 0; i < columns.size(); i++) {
+            sb.append(getEscapedColumnName(columns.get(i)));
+            if(i < columns.size() - 1) {
+                sb.append(", ");
+                if(sb.length() > 80) {
+                    lines.add(sb.toString());
+                    sb.setLength(0);
+                    sb.append("  ");
+                }
+            }
+        }
+        sb.append(")");
+        lines.add(sb.toString());
+        lines.add("values");
+        return lines;
+    }
+
+    private static List<String> getValuesLines(IntrospectedTable introspectedTable) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder sb = new StringBuilder("(");
+        List<IntrospectedColumn> columns = removeIdentityAndGeneratedAlwaysColumns(introspectedTable.getAllColumns());
+        for(int i = 0; i < columns.size(); i++) {
+            sb.append(getParameterClause(columns.get(i), RECORD + "."));
+            if(i < columns.size() - 1) {
+                sb.append(", ");
+                if(sb.length() > 80) {
+                    lines.add(sb.toString());
+                    sb.setLength(0);
+                    sb.append("  ");
+                }
+            }
+        }
+        sb.append(")");
+        lines.add(sb.toString());
+        return lines;
+    }
+
+    /**
+     * Returns the column of the generated key, if it is retrieved with the JDBC API.
+     * @param introspectedTable
+     * @return
+     */
+    private static IntrospectedColumn getJdbcGeneratedKeyColumn(IntrospectedTable introspectedTable) {
+        GeneratedKey generatedKey = introspectedTable.getGeneratedKey();
+        if(generatedKey == null || !generatedKey.isJdbcStandard()) {
+            return null;
+        }
+        return introspectedTable.getColumn(generatedKey.getColumn());
+    }
+
+    /**
+     * Returns the chunk size of the table, lowered so that a chunk does not exceed the maximum number of parameters.
+     * @param introspectedTable
+     * @return
+     */
+    private int getChunkSize(IntrospectedTable introspectedTable) {
+        int tableChunkSize = getIntProperty(introspectedTable.getTableConfigurationProperty("chunkSize"), chunkSize);
+        int tableMaxParameters = getIntProperty(introspectedTable.getTableConfigurationProperty("maxParameters"), maxParameters);
+        if(tableChunkSize <= 0 || tableMaxParameters < 0) {
+            throw new IllegalArgumentException("BatchInsertPlugin: chunkSize and maxParameters of table "
+                    + introspectedTable.getFullyQualifiedTable() + " must be positive integers");
+        }
+        int columnCount = removeIdentityAndGeneratedAlwaysColumns(introspectedTable.getAllColumns()).size();
+        if(tableMaxParameters > 0 && columnCount > 0) {
+            tableChunkSize = Math.max(1, Math.min(tableChunkSize, tableMaxParameters / columnCount));
+        }
+        return tableChunkSize;
+    }
+
+    private static Method findMethod(Interface interfaze, String name) {
+        for(Method method : interfaze.getMethods()) {
+            if(method.getName().equals(name)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static XmlElement findStatement(XmlElement root, String id) {
+        for(Element element : root.getElements()) {
+            if(element instanceof XmlElement) {
+                for(Attribute attribute : ((XmlElement) element).getAttributes()) {
+                    if("id".equals(attribute.getName()) && id.equals(attribute.getValue())) {
+                        return (XmlElement) element;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,488 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.config.PropertyRegistry;
+import org.mybatis.generator.internal.rules.Rules;
+
+import java.util.*;
+
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getGetterMethodName;
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getSetterMethodName;
+
+/**
+ * Generate a compact binary encoding of the model classes, without reflection:
+ * <ul>
+ *     <li><code>writeTo(ByteBuffer)</code> writes the record at the position of the buffer</li>
+ *     <li><code>readFrom(ByteBuffer)</code> reads a record written by <code>writeTo</code></li>
+ *     <li><code>estimateSize()</code> returns an upper bound of the number of bytes written by <code>writeTo</code>,
+ *     to size the buffers</li>
+ * </ul>
+ * The columns are written in the same order as the other plugins walk them. A record starts with a bitmap of its null
+ * values, written as variable length longs, followed by the values which are not null: zigzag variable length integers
+ * for short, int and long values, length prefixed UTF-8 for strings, length prefixed raw bytes for BLOBs, unscaled value
+ * and scale for decimals, and milliseconds or epoch based variable length integers for dates and times. Booleans,
+ * bytes, floats and doubles are written as is.
+ * <p>
+ * The encoding functions are generated once per context, in a <code>BinaryCodec</code> class in the model target package.
+ * A model class having a column of another type gets no binary encoding, and a warning naming the column is reported.
+ * <code>readFrom</code> builds an immutable or constructor based record with the constructor taking all its columns; an
+ * immutable class having no such constructor gets no binary encoding either.
+ *
+ * @author Alexandre Hausherr
+ * @version 1
+ */
+public class BinaryCodecPlugin extends PluginAdapter {
+
+    private static final String CODEC_CLASS = "BinaryCodec";
+
+    private static final FullyQualifiedJavaType BYTE_BUFFER = new FullyQualifiedJavaType("java.nio.ByteBuffer");
+
+    /**
+     * Encoding of a Java type: statement writing the value <code>%s</code> to the <code>codecBuffer</code>, expression
+     * reading it from the <code>codecBuffer</code>, and its maximum size, or -1 if its size depends on the value.
+     */
+    private static final class Encoding {
+        private final String write;
+        private final String read;
+        private final int maxSize;
+
+        private Encoding(String write, String read, int maxSize) {
+            this.write = write;
+            this.read = read;
+            this.maxSize = maxSize;
+        }
+    }
+
+    private static final Map<String, Encoding> ENCODINGS = new HashMap<>();
+
+    static {
+        Encoding booleanEncoding = new Encoding("codecBuffer.put((byte) (%s ? 1 : 0));", "codecBuffer.get() != 0", 1);
+        Encoding byteEncoding = new Encoding("codecBuffer.put(%s);", "codecBuffer.get()", 1);
+        Encoding shortEncoding = new Encoding(CODEC_CLASS + ".putVarInt(codecBuffer, %s);", "(short) " + CODEC_CLASS + ".getVarInt(codecBuffer)", 3);
+        Encoding intEncoding = new Encoding(CODEC_CLASS + ".putVarInt(codecBuffer, %s);", CODEC_CLASS + ".getVarInt(codecBuffer)", 5);
+        Encoding longEncoding = new Encoding(CODEC_CLASS + ".putVarLong(codecBuffer, %s);", CODEC_CLASS + ".getVarLong(codecBuffer)", 10);
+        Encoding floatEncoding = new Encoding("codecBuffer.putFloat(%s);", "codecBuffer.getFloat()", 4);
+        Encoding doubleEncoding = new Encoding("codecBuffer.putDouble(%s);", "codecBuffer.getDouble()", 8);
+        ENCODINGS.put("boolean", booleanEncoding);
+        ENCODINGS.put("java.lang.Boolean", booleanEncoding);
+        ENCODINGS.put("byte", byteEncoding);
+        ENCODINGS.put("java.lang.Byte", byteEncoding);
+        ENCODINGS.put("short", shortEncoding);
+        ENCODINGS.put("java.lang.Short", shortEncoding);
+        ENCODINGS.put("int", intEncoding);
+        ENCODINGS.put("java.lang.Integer", intEncoding);
+        ENCODINGS.put("long", longEncoding);
+        ENCODINGS.put("java.lang.Long", longEncoding);
+        ENCODINGS.put("float", floatEncoding);
+        ENCODINGS.put("java.lang.Float", floatEncoding);
+        ENCODINGS.put("double", doubleEncoding);
+        ENCODINGS.put("java.lang.Double", doubleEncoding);
+        ENCODINGS.put("java.lang.String", new Encoding(CODEC_CLASS + ".putString(codecBuffer, %s);", CODEC_CLASS + ".getString(codecBuffer)", -1));
+        ENCODINGS.put("byte[]", new Encoding(CODEC_CLASS + ".putBytes(codecBuffer, %s);", CODEC_CLASS + ".getBytes(codecBuffer)", -1));
+        ENCODINGS.put("java.math.BigDecimal", new Encoding(CODEC_CLASS + ".putBigDecimal(codecBuffer, %s);", CODEC_CLASS + ".getBigDecimal(codecBuffer)", -1));
+        ENCODINGS.put("java.util.Date", new Encoding(CODEC_CLASS + ".putVarLong(codecBuffer, %s.getTime());",
+                "new Date(" + CODEC_CLASS + ".getVarLong(codecBuffer))", 10));
+        ENCODINGS.put("java.time.LocalDate", new Encoding(CODEC_CLASS + ".putVarLong(codecBuffer, %s.toEpochDay());",
+                "LocalDate.ofEpochDay(" + CODEC_CLASS + ".getVarLong(codecBuffer))", 10));
+        ENCODINGS.put("java.time.LocalTime", new Encoding(CODEC_CLASS + ".putVarLong(codecBuffer, %s.toNanoOfDay());",
+                "LocalTime.ofNanoOfDay(" + CODEC_CLASS + ".getVarLong(codecBuffer))", 10));
+        ENCODINGS.put("java.time.LocalDateTime", new Encoding(CODEC_CLASS + ".putLocalDateTime(codecBuffer, %s);",
+                CODEC_CLASS + ".getLocalDateTime(codecBuffer)", 15));
+    }
+
+    private FullyQualifiedJavaType codecType;
+
+    private boolean codecUsed;
+
+    private List<String> warnings;
+
+
+    /**
+     * Keep the warnings of the generation, to report the classes left without binary encoding.
+     * @param warnings
+     * @return
+     */
+    @Override
+    public boolean validate(List<String> warnings) {
+        this.warnings = warnings;
+        codecType = new FullyQualifiedJavaType(context.getJavaModelGeneratorConfiguration().getTargetPackage() + "." + CODEC_CLASS);
+        return true;
+    }
+
+
+    /**
+     * The codec is generated as soon as a model class of a table can be encoded, even when the generation of its
+     * classes is skipped by {@link IncrementalGenerationPlugin}.
+     * @param introspectedTable
+     */
+    @Override
+    public void initialized(IntrospectedTable introspectedTable) {
+        Rules rules = introspectedTable.getRules();
+        if(rules.generatePrimaryKeyClass() && isEncodable(introspectedTable.getPrimaryKeyColumns())
+                || rules.generateBaseRecordClass() && isEncodable(rules.generateRecordWithBLOBsClass()
+                        ? introspectedTable.getNonBLOBColumns() : introspectedTable.getAllColumns())
+                || rules.generateRecordWithBLOBsClass() && isEncodable(introspectedTable.getAllColumns())) {
+            codecUsed = true;
+        }
+    }
+
+    private static boolean isEncodable(List<IntrospectedColumn> introspectedColumns) {
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            if(!ENCODINGS.containsKey(introspectedColumn.getFullyQualifiedJavaType().getFullyQualifiedName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        List<IntrospectedColumn> columns = introspectedTable.getRules().generateRecordWithBLOBsClass()
+                ? introspectedTable.getNonBLOBColumns() : introspectedTable.getAllColumns();
+        addCodecMethods(topLevelClass, columns, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean modelPrimaryKeyClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        addCodecMethods(topLevelClass, introspectedTable.getPrimaryKeyColumns(), introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        addCodecMethods(topLevelClass, introspectedTable.getAllColumns(), introspectedTable);
+        return true;
+    }
+
+    /**
+     * Generate the encoding functions once all the tables of the context have been generated, if any class uses them.
+     * @return
+     */
+    @Override
+    public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles() {
+        if(!codecUsed) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new GeneratedJavaFile(generateCodec(),
+                context.getJavaModelGeneratorConfiguration().getTargetProject(),
+                context.getProperty(PropertyRegistry.CONTEXT_JAVA_FILE_ENCODING),
+                context.getJavaFormatter()));
+    }
+
+
+    /**
+     * Add the codec methods of a class, encoding all its columns, including the inherited ones, so that each class can
+     * be read back on its own.
+     * @param topLevelClass
+     * @param introspectedColumns
+     * @param introspectedTable
+     */
+    private void addCodecMethods(TopLevelClass topLevelClass, List<IntrospectedColumn> introspectedColumns, IntrospectedTable introspectedTable) {
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            if(!ENCODINGS.containsKey(introspectedColumn.getFullyQualifiedJavaType().getFullyQualifiedName())) {
+                warnings.add("BinaryCodecPlugin: no binary encoding for " + topLevelClass.getType().getShortName() //$NON-NLS-1$
+                        + ", column " + introspectedColumn.getActualColumnName() + " of table " //$NON-NLS-1$ //$NON-NLS-2$
+                        + introspectedTable.getFullyQualifiedTable() + " has the unsupported type " //$NON-NLS-1$
+                        + introspectedColumn.getFullyQualifiedJavaType().getFullyQualifiedName());
+                return;
+            }
+        }
+        Optional<Method> constructor = findArgumentsConstructor(topLevelClass, introspectedColumns, introspectedTable);
+        if(!constructor.isPresent() && introspectedTable.isImmutable()) {
+            warnings.add("BinaryCodecPlugin: no binary encoding for " + topLevelClass.getType().getShortName() //$NON-NLS-1$
+                    + ", the immutable class of table " + introspectedTable.getFullyQualifiedTable() //$NON-NLS-1$
+                    + " has no constructor taking exactly its columns"); //$NON-NLS-1$
+            return;
+        }
+        List<IntrospectedColumn> nullableColumns = new ArrayList<>();
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            if(!introspectedColumn.getFullyQualifiedJavaType().isPrimitive()) {
+                nullableColumns.add(introspectedColumn);
+            }
+        }
+        int nullWords = (nullableColumns.size() + 63) / 64;
+
+        topLevelClass.addImportedType(BYTE_BUFFER);
+        topLevelClass.addImportedType(codecType);
+        // readFrom declares its locals with the short names of the column types, which may be inherited fields
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            topLevelClass.addImportedType(introspectedColumn.getFullyQualifiedJavaType());
+        }
+        topLevelClass.addMethod(generateWriteTo(introspectedColumns, nullableColumns, nullWords, topLevelClass, introspectedTable));
+        topLevelClass.addMethod(generateReadFrom(introspectedColumns, nullableColumns, nullWords, constructor, topLevelClass, introspectedTable));
+        topLevelClass.addMethod(generateEstimateSize(introspectedColumns, nullWords, topLevelClass, introspectedTable));
+    }
+
+    private Method generateWriteTo(List<IntrospectedColumn> introspectedColumns, List<IntrospectedColumn> nullableColumns,
+                                   int nullWords, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        Method method = new Method("writeTo"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.addParameter(new Parameter(BYTE_BUFFER, "codecBuffer")); //$NON-NLS-1$
+        addMethodComment(method, introspectedTable, topLevelClass);
+
+        for(int word = 0; word < nullWords; word++) {
+            method.addBodyLine("long codecNulls" + word + " = 0L;"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        for(int i = 0; i < nullableColumns.size(); i++) {
+            method.addBodyLine("if (" + getValue(nullableColumns.get(i)) + " == null) {"); //$NON-NLS-1$ //$NON-NLS-2$
+            method.addBodyLine("codecNulls" + (i / 64) + " |= 1L << " + (i % 64) + ";"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            method.addBodyLine("}"); //$NON-NLS-1$
+        }
+        for(int word = 0; word < nullWords; word++) {
+            method.addBodyLine(CODEC_CLASS + ".putUnsignedVarLong(codecBuffer, codecNulls" + word + ");"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            String value = getValue(introspectedColumn);
+            String write = String.format(getEncoding(introspectedColumn).write, value);
+            if(introspectedColumn.getFullyQualifiedJavaType().isPrimitive()) {
+                method.addBodyLine(write);
+            } else {
+                method.addBodyLine("if (" + value + " != null) {"); //$NON-NLS-1$ //$NON-NLS-2$
+                method.addBodyLine(write);
+                method.addBodyLine("}"); //$NON-NLS-1$
+            }
+        }
+        return method;
+    }
+
+    private Method generateReadFrom(List<IntrospectedColumn> introspectedColumns, List<IntrospectedColumn> nullableColumns,
+                                    int nullWords, Optional<Method> constructor, TopLevelClass topLevelClass,
+                                    IntrospectedTable introspectedTable) {
+        FullyQualifiedJavaType type = topLevelClass.getType();
+        String className = type.getShortName();
+        Method method = new Method("readFrom"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.setStatic(true);
+        method.setReturnType(type);
+        method.addParameter(new Parameter(BYTE_BUFFER, "codecBuffer")); //$NON-NLS-1$
+        addMethodComment(method, introspectedTable, topLevelClass);
+
+        for(int word = 0; word < nullWords; word++) {
+            method.addBodyLine("long codecNulls" + word + " = " + CODEC_CLASS + ".getUnsignedVarLong(codecBuffer);"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            FullyQualifiedJavaType columnType = introspectedColumn.getFullyQualifiedJavaType();
+            String read = getEncoding(introspectedColumn).read;
+            int nullIndex = nullableColumns.indexOf(introspectedColumn);
+            if(nullIndex >= 0) {
+                read = "(codecNulls" + (nullIndex / 64) + " & 1L << " + (nullIndex % 64) + ") != 0 ? null : " + read; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+            method.addBodyLine(columnType.getShortName() + " " + getLocalName(introspectedColumn.getJavaProperty()) + " = " + read + ";"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+
+        if(constructor.isPresent()) {
+            StringJoiner arguments = new StringJoiner(", "); //$NON-NLS-1$
+            constructor.get().getParameters().forEach(parameter -> arguments.add(getLocalName(parameter.getName())));
+            method.addBodyLine("return new " + className + "(" + arguments + ");"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        } else {
+            method.addBodyLine(className + " codecRecord = new " + className + "();"); //$NON-NLS-1$ //$NON-NLS-2$
+            for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+                String property = introspectedColumn.getJavaProperty();
+                method.addBodyLine("codecRecord." + getSetterMethodName(property) + "(" + getLocalName(property) + ");"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+            method.addBodyLine("return codecRecord;"); //$NON-NLS-1$
+        }
+        return method;
+    }
+
+    private Method generateEstimateSize(List<IntrospectedColumn> introspectedColumns, int nullWords,
+                                        TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        Method method = new Method("estimateSize"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        addMethodComment(method, introspectedTable, topLevelClass);
+
+        // each null word is written as a varint of at most 10 bytes
+        int fixedSize = nullWords * 10;
+        List<IntrospectedColumn> variableColumns = new ArrayList<>();
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            int maxSize = getEncoding(introspectedColumn).maxSize;
+            if(maxSize < 0) {
+                variableColumns.add(introspectedColumn);
+            } else {
+                fixedSize += maxSize;
+            }
+        }
+        if(variableColumns.isEmpty()) {
+            method.addBodyLine("return " + fixedSize + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+            return method;
+        }
+        method.addBodyLine("int size = " + fixedSize + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+        for(IntrospectedColumn introspectedColumn : variableColumns) {
+            String value = getValue(introspectedColumn);
+            method.addBodyLine("if (" + value + " != null) {"); //$NON-NLS-1$ //$NON-NLS-2$
+            method.addBodyLine("size += " + CODEC_CLASS + ".sizeOf(" + value + ");"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            method.addBodyLine("}"); //$NON-NLS-1$
+        }
+        method.addBodyLine("return size;"); //$NON-NLS-1$
+        return method;
+    }
+
+
+    /**
+     * Returns the name of the local variable of a property in <code>readFrom</code>, prefixed so that it cannot collide
+     * with the buffer, the null bitmaps or the record.
+     * @param property
+     * @return
+     */
+    private static String getLocalName(String property) {
+        return "codecValue_" + property; //$NON-NLS-1$
+    }
+
+    private static Encoding getEncoding(IntrospectedColumn introspectedColumn) {
+        return ENCODINGS.get(introspectedColumn.getFullyQualifiedJavaType().getFullyQualifiedName());
+    }
+
+    private static String getValue(IntrospectedColumn introspectedColumn) {
+        return getGetterMethodName(introspectedColumn.getJavaProperty(), introspectedColumn.getFullyQualifiedJavaType()) + "()"; //$NON-NLS-1$
+    }
+
+    /**
+     * Returns the constructor of an immutable or constructor based class whose parameters are named after exactly the
+     * given columns, ignoring the constructors other plugins may add.
+     * @param topLevelClass
+     * @param introspectedColumns
+     * @param introspectedTable
+     * @return
+     */
+    private static Optional<Method> findArgumentsConstructor(TopLevelClass topLevelClass, List<IntrospectedColumn> introspectedColumns,
+                                                             IntrospectedTable introspectedTable) {
+        if(!introspectedTable.isImmutable() && !introspectedTable.isConstructorBased()) {
+            return Optional.empty();
+        }
+        Set<String> properties = new HashSet<>();
+        introspectedColumns.forEach(introspectedColumn -> properties.add(introspectedColumn.getJavaProperty()));
+        return topLevelClass.getMethods().stream()
+                .filter(method -> method.isConstructor() && method.getParameters().size() == properties.size()
+                        && method.getParameters().stream().allMatch(parameter -> properties.contains(parameter.getName())))
+                .findFirst();
+    }
+
+    private void addMethodComment(Method method, IntrospectedTable introspectedTable, TopLevelClass topLevelClass) {
+        if (introspectedTable.getTargetRuntime() == IntrospectedTable.TargetRuntime.MYBATIS3_DSQL) {
+            context.getCommentGenerator().addGeneralMethodAnnotation(method,
+                    introspectedTable, topLevelClass.getImportedTypes());
+        } else {
+            context.getCommentGenerator().addGeneralMethodComment(method,
+                    introspectedTable);
+        }
+    }
+
+
+    private TopLevelClass generateCodec() {
+        TopLevelClass codec = new TopLevelClass(codecType);
+        codec.setVisibility(JavaVisibility.PUBLIC);
+        codec.setFinal(true);
+        codec.addImportedType(BYTE_BUFFER);
+        codec.addImportedType("java.math.BigDecimal"); //$NON-NLS-1$
+        codec.addImportedType("java.math.BigInteger"); //$NON-NLS-1$
+        codec.addImportedType("java.nio.charset.StandardCharsets"); //$NON-NLS-1$
+        codec.addImportedType("java.time.LocalDateTime"); //$NON-NLS-1$
+        codec.addImportedType("java.time.ZoneOffset"); //$NON-NLS-1$
+        codec.addJavaDocLine("/**"); //$NON-NLS-1$
+        codec.addJavaDocLine(" * Encoding functions of the binary model codecs. Generated by " + getClass().getSimpleName() + "."); //$NON-NLS-1$ //$NON-NLS-2$
+        codec.addJavaDocLine(" */"); //$NON-NLS-1$
+
+        FullyQualifiedJavaType voidType = null;
+        FullyQualifiedJavaType intType = FullyQualifiedJavaType.getIntInstance();
+        FullyQualifiedJavaType longType = new FullyQualifiedJavaType("long"); //$NON-NLS-1$
+        FullyQualifiedJavaType stringType = FullyQualifiedJavaType.getStringInstance();
+        FullyQualifiedJavaType bytesType = new FullyQualifiedJavaType("byte[]"); //$NON-NLS-1$
+        FullyQualifiedJavaType bigDecimalType = new FullyQualifiedJavaType("java.math.BigDecimal"); //$NON-NLS-1$
+        FullyQualifiedJavaType localDateTimeType = new FullyQualifiedJavaType("java.time.LocalDateTime"); //$NON-NLS-1$
+
+        addStaticMethod(codec, voidType, "putUnsignedVarLong", new Parameter(longType, "value"), //$NON-NLS-1$ //$NON-NLS-2$
+                "while ((value & ~0x7FL) != 0) {",
+                "buffer.put((byte) ((value & 0x7F) | 0x80));",
+                "value >>>= 7;",
+                "}",
+                "buffer.put((byte) value);");
+        addStaticMethod(codec, longType, "getUnsignedVarLong", null, //$NON-NLS-1$
+                "long value = 0;",
+                "for (int shift = 0; shift < 64; shift += 7) {",
+                "byte b = buffer.get();",
+                "value |= (long) (b & 0x7F) << shift;",
+                "if (b >= 0) {",
+                "return value;",
+                "}",
+                "}",
+                "throw new IllegalArgumentException(\"Malformed variable length integer\");");
+        addStaticMethod(codec, voidType, "putVarLong", new Parameter(longType, "value"), //$NON-NLS-1$ //$NON-NLS-2$
+                "putUnsignedVarLong(buffer, (value << 1) ^ (value >> 63));");
+        addStaticMethod(codec, longType, "getVarLong", null, //$NON-NLS-1$
+                "long value = getUnsignedVarLong(buffer);",
+                "return (value >>> 1) ^ -(value & 1);");
+        addStaticMethod(codec, voidType, "putVarInt", new Parameter(intType, "value"), //$NON-NLS-1$ //$NON-NLS-2$
+                "putUnsignedVarLong(buffer, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);");
+        addStaticMethod(codec, intType, "getVarInt", null, //$NON-NLS-1$
+                "int value = (int) getUnsignedVarLong(buffer);",
+                "return (value >>> 1) ^ -(value & 1);");
+        addStaticMethod(codec, voidType, "putBytes", new Parameter(bytesType, "value"), //$NON-NLS-1$ //$NON-NLS-2$
+                "putUnsignedVarLong(buffer, value.length);",
+                "buffer.put(value);");
+        addStaticMethod(codec, bytesType, "getBytes", null, //$NON-NLS-1$
+                "byte[] value = new byte[(int) getUnsignedVarLong(buffer)];",
+                "buffer.get(value);",
+                "return value;");
+        addStaticMethod(codec, voidType, "putString", new Parameter(stringType, "value"), //$NON-NLS-1$ //$NON-NLS-2$
+                "putBytes(buffer, value.getBytes(StandardCharsets.UTF_8));");
+        addStaticMethod(codec, stringType, "getString", null, //$NON-NLS-1$
+                "int length = (int) getUnsignedVarLong(buffer);",
+                "if (buffer.hasArray()) {",
+                "String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);",
+                "buffer.position(buffer.position() + length);",
+                "return value;",
+                "}",
+                "byte[] bytes = new byte[length];",
+                "buffer.get(bytes);",
+                "return new String(bytes, StandardCharsets.UTF_8);");
+        addStaticMethod(codec, voidType, "putBigDecimal", new Parameter(bigDecimalType, "value"), //$NON-NLS-1$ //$NON-NLS-2$
+                "putVarInt(buffer, value.scale());",
+                "putBytes(buffer, value.unscaledValue().toByteArray());");
+        addStaticMethod(codec, bigDecimalType, "getBigDecimal", null, //$NON-NLS-1$
+                "int scale = getVarInt(buffer);",
+                "return new BigDecimal(new BigInteger(getBytes(buffer)), scale);");
+        addStaticMethod(codec, voidType, "putLocalDateTime", new Parameter(localDateTimeType, "value"), //$NON-NLS-1$ //$NON-NLS-2$
+                "putVarLong(buffer, value.toEpochSecond(ZoneOffset.UTC));",
+                "putVarInt(buffer, value.getNano());");
+        addStaticMethod(codec, localDateTimeType, "getLocalDateTime", null, //$NON-NLS-1$
+                "long seconds = getVarLong(buffer);",
+                "return LocalDateTime.ofEpochSecond(seconds, getVarInt(buffer), ZoneOffset.UTC);");
+
+        // upper bounds of the encoded sizes: a length varint followed by at most 3 UTF-8 bytes per char
+        addSizeOfMethod(codec, stringType, "return 5 + value.length() * 3;"); //$NON-NLS-1$
+        addSizeOfMethod(codec, bytesType, "return 5 + value.length;"); //$NON-NLS-1$
+        addSizeOfMethod(codec, bigDecimalType, "return 11 + value.unscaledValue().bitLength() / 8;"); //$NON-NLS-1$
+        return codec;
+    }
+
+    private static void addStaticMethod(TopLevelClass codec, FullyQualifiedJavaType returnType, String name,
+                                        Parameter parameter, String... bodyLines) {
+        Method method = new Method(name);
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.setStatic(true);
+        method.setReturnType(returnType);
+        method.addParameter(new Parameter(BYTE_BUFFER, "buffer")); //$NON-NLS-1$
+        if(parameter != null) {
+            method.addParameter(parameter);
+        }
+        method.addBodyLines(Arrays.asList(bodyLines));
+        codec.addMethod(method);
+    }
+
+    private static void addSizeOfMethod(TopLevelClass codec, FullyQualifiedJavaType type, String bodyLine) {
+        Method method = new Method("sizeOf"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.setStatic(true);
+        method.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        method.addParameter(new Parameter(type, "value")); //$NON-NLS-1$
+        method.addBodyLine(bodyLine);
+        codec.addMethod(method);
+    }
+}
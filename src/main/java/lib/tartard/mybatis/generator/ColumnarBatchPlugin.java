@@ -0,0 +1,545 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.config.PropertyRegistry;
+
+import java.util.*;
+
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getGetterMethodName;
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getSetterMethodName;
+
+/**
+ * Generate a columnar container of the records of each table, named after the record class with a <code>Batch</code>
+ * suffix, to load and scan many records with a compact memory layout.
+ * <p>
+ * The batch stores each column in its own array: a primitive array for numeric, boolean and date columns (as epoch
+ * milliseconds), along with a bitmap of the null values for the nullable ones, and an object array for the other
+ * columns. It holds the columns of the base record class: BLOB columns of tables having a record with BLOBs class are
+ * not stored.
+ * <p>
+ * The batch is a MyBatis <code>ResultHandler</code>, so it can be filled directly by a select method taking a handler,
+ * such as the ones generated by the {@link CursorSelectPlugin}. The records can also be appended with
+ * <code>add</code> and <code>addAll</code>. The values are read by row with the column getters, through the
+ * <code>Row</code> views the batch iterates on, or by scanning the arrays returned by the <code>get...Values()</code>
+ * methods up to <code>size()</code>. The index of a row view is returned by <code>rowIndex()</code>, which cannot clash
+ * with the getters of the columns.
+ * <p>
+ * The records are rebuilt by <code>toRecord</code> with the constructor taking all the columns when the model is
+ * immutable or constructor based, and with the setters otherwise. An immutable record class having no such constructor
+ * gets no batch, and a warning is reported.
+ *
+ * @author Alexandre Hausherr
+ * @version 1
+ */
+public class ColumnarBatchPlugin extends PluginAdapter {
+
+    private static final String BATCH_SUFFIX = "Batch";
+
+    private static final String ROW_CLASS = "Row";
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final FullyQualifiedJavaType RESULT_HANDLER = new FullyQualifiedJavaType("org.apache.ibatis.session.ResultHandler");
+    private static final FullyQualifiedJavaType RESULT_CONTEXT = new FullyQualifiedJavaType("org.apache.ibatis.session.ResultContext");
+
+    /**
+     * Primitive type storing the values of a column, by Java type of the column.
+     */
+    private static final Map<String, String> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        for(String primitive : new String[] { "boolean", "byte", "short", "int", "long", "float", "double" }) {
+            PRIMITIVE_TYPES.put(primitive, primitive);
+        }
+        PRIMITIVE_TYPES.put("java.lang.Boolean", "boolean");
+        PRIMITIVE_TYPES.put("java.lang.Byte", "byte");
+        PRIMITIVE_TYPES.put("java.lang.Short", "short");
+        PRIMITIVE_TYPES.put("java.lang.Integer", "int");
+        PRIMITIVE_TYPES.put("java.lang.Long", "long");
+        PRIMITIVE_TYPES.put("java.lang.Float", "float");
+        PRIMITIVE_TYPES.put("java.lang.Double", "double");
+        PRIMITIVE_TYPES.put("java.util.Date", "long");
+    }
+
+    private final Map<IntrospectedTable, TopLevelClass> batchClasses = new HashMap<>();
+
+    private List<String> warnings;
+
+
+    /**
+     * Keep the warnings of the generation, to report the record classes left without batch.
+     * @param warnings
+     * @return
+     */
+    @Override
+    public boolean validate(List<String> warnings) {
+        this.warnings = warnings;
+        return true;
+    }
+
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        List<IntrospectedColumn> columns = introspectedTable.getRules().generateRecordWithBLOBsClass()
+                ? introspectedTable.getNonBLOBColumns() : introspectedTable.getAllColumns();
+        addBatch(topLevelClass, columns, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        if(!introspectedTable.getRules().generateBaseRecordClass()) {
+            addBatch(topLevelClass, introspectedTable.getAllColumns(), introspectedTable);
+        }
+        return true;
+    }
+
+    @Override
+    public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles(IntrospectedTable introspectedTable) {
+        TopLevelClass batch = batchClasses.remove(introspectedTable);
+        if(batch == null) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new GeneratedJavaFile(batch,
+                context.getJavaModelGeneratorConfiguration().getTargetProject(),
+                context.getProperty(PropertyRegistry.CONTEXT_JAVA_FILE_ENCODING),
+                context.getJavaFormatter()));
+    }
+
+
+    private void addBatch(TopLevelClass recordClass, List<IntrospectedColumn> introspectedColumns, IntrospectedTable introspectedTable) {
+        Optional<Method> constructor = findArgumentsConstructor(recordClass, introspectedColumns, introspectedTable);
+        if(!constructor.isPresent() && introspectedTable.isImmutable()) {
+            warnings.add("ColumnarBatchPlugin: no batch for " + recordClass.getType().getShortName() //$NON-NLS-1$
+                    + ", the immutable record class of table " + introspectedTable.getFullyQualifiedTable() //$NON-NLS-1$
+                    + " has no constructor taking exactly its columns"); //$NON-NLS-1$
+            return;
+        }
+        batchClasses.put(introspectedTable, generateBatch(recordClass, constructor, introspectedColumns));
+    }
+
+    private TopLevelClass generateBatch(TopLevelClass recordClass, Optional<Method> recordConstructor, List<IntrospectedColumn> introspectedColumns) {
+        FullyQualifiedJavaType recordType = recordClass.getType();
+        String recordName = recordType.getShortName();
+        FullyQualifiedJavaType batchType = new FullyQualifiedJavaType(recordType.getFullyQualifiedName() + BATCH_SUFFIX);
+        String batchName = batchType.getShortName();
+
+        TopLevelClass batch = new TopLevelClass(batchType);
+        batch.setVisibility(JavaVisibility.PUBLIC);
+        FullyQualifiedJavaType handlerType = new FullyQualifiedJavaType(RESULT_HANDLER.getFullyQualifiedName());
+        handlerType.addTypeArgument(recordType);
+        batch.addSuperInterface(handlerType);
+        // the implements clause is outside the scope of the nested row class, which has to be imported
+        FullyQualifiedJavaType rowType = new FullyQualifiedJavaType(batchType.getFullyQualifiedName() + "." + ROW_CLASS); //$NON-NLS-1$
+        FullyQualifiedJavaType iterableType = new FullyQualifiedJavaType("java.lang.Iterable"); //$NON-NLS-1$
+        iterableType.addTypeArgument(rowType);
+        batch.addSuperInterface(iterableType);
+        batch.addImportedType(rowType);
+        batch.addImportedType(RESULT_HANDLER);
+        batch.addImportedType(RESULT_CONTEXT);
+        batch.addImportedType("java.util.Arrays"); //$NON-NLS-1$
+        batch.addImportedType("java.util.Collection"); //$NON-NLS-1$
+        batch.addImportedType("java.util.Iterator"); //$NON-NLS-1$
+        batch.addImportedType("java.util.NoSuchElementException"); //$NON-NLS-1$
+        batch.addImportedType("java.util.function.Consumer"); //$NON-NLS-1$
+        batch.addImportedType(recordType);
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            batch.addImportedType(introspectedColumn.getFullyQualifiedJavaType());
+        }
+        context.getCommentGenerator().addJavaFileComment(batch);
+        batch.addJavaDocLine("/**"); //$NON-NLS-1$
+        batch.addJavaDocLine(" * Columnar container of " + recordName + " records, filled by a select method taking a handler or by add. Generated by " //$NON-NLS-1$ //$NON-NLS-2$
+                + getClass().getSimpleName() + "."); //$NON-NLS-1$
+        batch.addJavaDocLine(" */"); //$NON-NLS-1$
+
+        Field sizeField = new Field("size", FullyQualifiedJavaType.getIntInstance()); //$NON-NLS-1$
+        sizeField.setVisibility(JavaVisibility.PRIVATE);
+        batch.addField(sizeField);
+        Field capacityField = new Field("capacity", FullyQualifiedJavaType.getIntInstance()); //$NON-NLS-1$
+        capacityField.setVisibility(JavaVisibility.PRIVATE);
+        batch.addField(capacityField);
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            Field values = new Field(getValuesField(introspectedColumn), new FullyQualifiedJavaType(getStorageType(introspectedColumn) + "[]")); //$NON-NLS-1$
+            values.setVisibility(JavaVisibility.PRIVATE);
+            batch.addField(values);
+            if(hasNullBitmap(introspectedColumn)) {
+                Field nulls = new Field(getNullsField(introspectedColumn), new FullyQualifiedJavaType("long[]")); //$NON-NLS-1$
+                nulls.setVisibility(JavaVisibility.PRIVATE);
+                batch.addField(nulls);
+            }
+        }
+
+        Method defaultConstructor = new Method(batchName);
+        defaultConstructor.setConstructor(true);
+        defaultConstructor.setVisibility(JavaVisibility.PUBLIC);
+        defaultConstructor.addBodyLine("this(" + DEFAULT_CAPACITY + ");"); //$NON-NLS-1$ //$NON-NLS-2$
+        batch.addMethod(defaultConstructor);
+
+        Method constructor = new Method(batchName);
+        constructor.setConstructor(true);
+        constructor.setVisibility(JavaVisibility.PUBLIC);
+        constructor.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "capacity")); //$NON-NLS-1$
+        constructor.addBodyLine("this.capacity = capacity;"); //$NON-NLS-1$
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            constructor.addBodyLine(getValuesField(introspectedColumn) + " = " + getNewArray(introspectedColumn, "capacity") + ";"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            if(hasNullBitmap(introspectedColumn)) {
+                constructor.addBodyLine(getNullsField(introspectedColumn) + " = new long[(capacity + 63) >>> 6];"); //$NON-NLS-1$
+            }
+        }
+        batch.addMethod(constructor);
+
+        Method size = new Method("size"); //$NON-NLS-1$
+        size.setVisibility(JavaVisibility.PUBLIC);
+        size.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        size.addBodyLine("return size;"); //$NON-NLS-1$
+        batch.addMethod(size);
+
+        batch.addMethod(generateAdd(recordType, introspectedColumns));
+        batch.addMethod(generateAddAll(recordType));
+        batch.addMethod(generateHandleResult(recordType));
+        batch.addMethod(generateClear(introspectedColumns));
+        batch.addMethod(generateEnsureCapacity(introspectedColumns));
+
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            addColumnMethods(batch, introspectedColumn);
+        }
+
+        batch.addMethod(generateToRecord(recordClass, recordConstructor, introspectedColumns));
+
+        Method row = new Method("row"); //$NON-NLS-1$
+        row.setVisibility(JavaVisibility.PUBLIC);
+        row.setReturnType(rowType);
+        row.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "row")); //$NON-NLS-1$
+        row.addBodyLine("if (row < 0 || row >= size) {"); //$NON-NLS-1$
+        row.addBodyLine("throw new IndexOutOfBoundsException(\"Row \" + row + \", size \" + size);"); //$NON-NLS-1$
+        row.addBodyLine("}"); //$NON-NLS-1$
+        row.addBodyLine("return new " + ROW_CLASS + "(row);"); //$NON-NLS-1$ //$NON-NLS-2$
+        batch.addMethod(row);
+
+        Method iterator = new Method("iterator"); //$NON-NLS-1$
+        iterator.setVisibility(JavaVisibility.PUBLIC);
+        iterator.addAnnotation("@Override"); //$NON-NLS-1$
+        iterator.setReturnType(new FullyQualifiedJavaType("Iterator<" + ROW_CLASS + ">")); //$NON-NLS-1$ //$NON-NLS-2$
+        iterator.addBodyLine("return new Iterator<" + ROW_CLASS + ">() {"); //$NON-NLS-1$ //$NON-NLS-2$
+        iterator.addBodyLine("private int row;"); //$NON-NLS-1$
+        iterator.addBodyLine("@Override"); //$NON-NLS-1$
+        iterator.addBodyLine("public boolean hasNext() {"); //$NON-NLS-1$
+        iterator.addBodyLine("return row < size;"); //$NON-NLS-1$
+        iterator.addBodyLine("}"); //$NON-NLS-1$
+        iterator.addBodyLine("@Override"); //$NON-NLS-1$
+        iterator.addBodyLine("public " + ROW_CLASS + " next() {"); //$NON-NLS-1$ //$NON-NLS-2$
+        iterator.addBodyLine("if (row >= size) {"); //$NON-NLS-1$
+        iterator.addBodyLine("throw new NoSuchElementException();"); //$NON-NLS-1$
+        iterator.addBodyLine("}"); //$NON-NLS-1$
+        iterator.addBodyLine("return new " + ROW_CLASS + "(row++);"); //$NON-NLS-1$ //$NON-NLS-2$
+        iterator.addBodyLine("}"); //$NON-NLS-1$
+        iterator.addBodyLine("};"); //$NON-NLS-1$
+        batch.addMethod(iterator);
+
+        // overridden to walk the rows without an iterator
+        Method forEach = new Method("forEach"); //$NON-NLS-1$
+        forEach.setVisibility(JavaVisibility.PUBLIC);
+        forEach.addAnnotation("@Override"); //$NON-NLS-1$
+        forEach.addParameter(new Parameter(new FullyQualifiedJavaType("Consumer<? super " + ROW_CLASS + ">"), "action")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        forEach.addBodyLine("for (int row = 0; row < size; row++) {"); //$NON-NLS-1$
+        forEach.addBodyLine("action.accept(new " + ROW_CLASS + "(row));"); //$NON-NLS-1$ //$NON-NLS-2$
+        forEach.addBodyLine("}"); //$NON-NLS-1$
+        batch.addMethod(forEach);
+
+        batch.addInnerClass(generateRow(batchName, recordType, introspectedColumns));
+        return batch;
+    }
+
+    private Method generateAdd(FullyQualifiedJavaType recordType, List<IntrospectedColumn> introspectedColumns) {
+        Method method = new Method("add"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.addParameter(new Parameter(recordType, "record")); //$NON-NLS-1$
+        method.addBodyLine("ensureCapacity(size + 1);"); //$NON-NLS-1$
+        method.addBodyLine("int row = size;"); //$NON-NLS-1$
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            String value = "record." + getGetterMethodName(introspectedColumn.getJavaProperty(), introspectedColumn.getFullyQualifiedJavaType()) + "()"; //$NON-NLS-1$ //$NON-NLS-2$
+            String store = getValuesField(introspectedColumn) + "[row] = " + getStoreExpression(introspectedColumn, value) + ";"; //$NON-NLS-1$ //$NON-NLS-2$
+            if(hasNullBitmap(introspectedColumn)) {
+                method.addBodyLine("if (" + value + " == null) {"); //$NON-NLS-1$ //$NON-NLS-2$
+                method.addBodyLine(getNullsField(introspectedColumn) + "[row >>> 6] |= 1L << row;"); //$NON-NLS-1$
+                method.addBodyLine("} else {"); //$NON-NLS-1$
+                method.addBodyLine(store);
+                method.addBodyLine("}"); //$NON-NLS-1$
+            } else {
+                method.addBodyLine(store);
+            }
+        }
+        method.addBodyLine("size = row + 1;"); //$NON-NLS-1$
+        return method;
+    }
+
+    private Method generateAddAll(FullyQualifiedJavaType recordType) {
+        Method method = new Method("addAll"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.addParameter(new Parameter(new FullyQualifiedJavaType("Collection<? extends " + recordType.getShortName() + ">"), "records")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        method.addBodyLine("ensureCapacity(size + records.size());"); //$NON-NLS-1$
+        method.addBodyLine("for (" + recordType.getShortName() + " record : records) {"); //$NON-NLS-1$ //$NON-NLS-2$
+        method.addBodyLine("add(record);"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+        return method;
+    }
+
+    private Method generateHandleResult(FullyQualifiedJavaType recordType) {
+        Method method = new Method("handleResult"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.addAnnotation("@Override"); //$NON-NLS-1$
+        method.addParameter(new Parameter(new FullyQualifiedJavaType("ResultContext<? extends " + recordType.getShortName() + ">"), "context")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        method.addBodyLine("add(context.getResultObject());"); //$NON-NLS-1$
+        return method;
+    }
+
+    /**
+     * Empty the batch, keeping its arrays. The references held by the object arrays are released.
+     * @param introspectedColumns
+     * @return
+     */
+    private Method generateClear(List<IntrospectedColumn> introspectedColumns) {
+        Method method = new Method("clear"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            if(getPrimitiveType(introspectedColumn) == null) {
+                method.addBodyLine("Arrays.fill(" + getValuesField(introspectedColumn) + ", 0, size, null);"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            if(hasNullBitmap(introspectedColumn)) {
+                method.addBodyLine("Arrays.fill(" + getNullsField(introspectedColumn) + ", 0L);"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+        method.addBodyLine("size = 0;"); //$NON-NLS-1$
+        return method;
+    }
+
+    private Method generateEnsureCapacity(List<IntrospectedColumn> introspectedColumns) {
+        Method method = new Method("ensureCapacity"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PRIVATE);
+        method.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "minCapacity")); //$NON-NLS-1$
+        method.addBodyLine("if (minCapacity <= capacity) {"); //$NON-NLS-1$
+        method.addBodyLine("return;"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+        method.addBodyLine("capacity = Math.max(minCapacity, capacity + (capacity >> 1));"); //$NON-NLS-1$
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            String values = getValuesField(introspectedColumn);
+            method.addBodyLine(values + " = Arrays.copyOf(" + values + ", capacity);"); //$NON-NLS-1$ //$NON-NLS-2$
+            if(hasNullBitmap(introspectedColumn)) {
+                String nulls = getNullsField(introspectedColumn);
+                method.addBodyLine(nulls + " = Arrays.copyOf(" + nulls + ", (capacity + 63) >>> 6);"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+        return method;
+    }
+
+    /**
+     * Add the getter of the value of a row, the null test of a row for nullable primitive columns, and the getter of the
+     * values array.
+     * @param batch
+     * @param introspectedColumn
+     */
+    private void addColumnMethods(TopLevelClass batch, IntrospectedColumn introspectedColumn) {
+        FullyQualifiedJavaType type = introspectedColumn.getFullyQualifiedJavaType();
+        String values = getValuesField(introspectedColumn);
+        String load = getLoadExpression(introspectedColumn, values + "[row]"); //$NON-NLS-1$
+
+        Method getter = new Method(getGetterMethodName(introspectedColumn.getJavaProperty(), type));
+        getter.setVisibility(JavaVisibility.PUBLIC);
+        getter.setReturnType(type);
+        getter.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "row")); //$NON-NLS-1$
+        if(hasNullBitmap(introspectedColumn)) {
+            getter.addBodyLine("return " + getNullTest(introspectedColumn) + " ? null : " + load + ";"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        } else {
+            getter.addBodyLine("return " + load + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        batch.addMethod(getter);
+
+        if(hasNullBitmap(introspectedColumn)) {
+            Method isNull = new Method("is" + getCapitalizedProperty(introspectedColumn) + "Null"); //$NON-NLS-1$ //$NON-NLS-2$
+            isNull.setVisibility(JavaVisibility.PUBLIC);
+            isNull.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+            isNull.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "row")); //$NON-NLS-1$
+            isNull.addBodyLine("return " + getNullTest(introspectedColumn) + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+            batch.addMethod(isNull);
+        }
+
+        Method valuesGetter = new Method("get" + getCapitalizedProperty(introspectedColumn) + "Values"); //$NON-NLS-1$ //$NON-NLS-2$
+        valuesGetter.setVisibility(JavaVisibility.PUBLIC);
+        valuesGetter.setReturnType(new FullyQualifiedJavaType(getStorageType(introspectedColumn) + "[]")); //$NON-NLS-1$
+        valuesGetter.addJavaDocLine("/**"); //$NON-NLS-1$
+        valuesGetter.addJavaDocLine(" * Returns the backing array of the column, whose values are valid up to size()" //$NON-NLS-1$
+                + (hasNullBitmap(introspectedColumn) ? " for the rows which are not null." : ".")); //$NON-NLS-1$ //$NON-NLS-2$
+        valuesGetter.addJavaDocLine(" */"); //$NON-NLS-1$
+        valuesGetter.addBodyLine("return " + values + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+        batch.addMethod(valuesGetter);
+    }
+
+    /**
+     * Generate the conversion of a row to a record, with the given constructor taking all the columns, or with the
+     * setters when there is none.
+     * @param recordClass
+     * @param constructor
+     * @param introspectedColumns
+     * @return
+     */
+    private Method generateToRecord(TopLevelClass recordClass, Optional<Method> constructor, List<IntrospectedColumn> introspectedColumns) {
+        FullyQualifiedJavaType recordType = recordClass.getType();
+        String recordName = recordType.getShortName();
+        Method method = new Method("toRecord"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.setReturnType(recordType);
+        method.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "row")); //$NON-NLS-1$
+
+        if(constructor.isPresent()) {
+            Map<String, IntrospectedColumn> columnsByProperty = new HashMap<>();
+            introspectedColumns.forEach(introspectedColumn -> columnsByProperty.put(introspectedColumn.getJavaProperty(), introspectedColumn));
+            StringJoiner arguments = new StringJoiner(", "); //$NON-NLS-1$
+            for(Parameter parameter : constructor.get().getParameters()) {
+                IntrospectedColumn introspectedColumn = columnsByProperty.get(parameter.getName());
+                arguments.add(getGetterMethodName(introspectedColumn.getJavaProperty(), introspectedColumn.getFullyQualifiedJavaType()) + "(row)"); //$NON-NLS-1$
+            }
+            method.addBodyLine("return new " + recordName + "(" + arguments + ");"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        } else {
+            method.addBodyLine(recordName + " record = new " + recordName + "();"); //$NON-NLS-1$ //$NON-NLS-2$
+            for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+                String property = introspectedColumn.getJavaProperty();
+                method.addBodyLine("record." + getSetterMethodName(property) + "(" //$NON-NLS-1$ //$NON-NLS-2$
+                        + getGetterMethodName(property, introspectedColumn.getFullyQualifiedJavaType()) + "(row));"); //$NON-NLS-1$
+            }
+            method.addBodyLine("return record;"); //$NON-NLS-1$
+        }
+        return method;
+    }
+
+    /**
+     * Generate the view of a row, with the getters of the record.
+     * @param batchName
+     * @param recordType
+     * @param introspectedColumns
+     * @return
+     */
+    private InnerClass generateRow(String batchName, FullyQualifiedJavaType recordType, List<IntrospectedColumn> introspectedColumns) {
+        InnerClass row = new InnerClass(new FullyQualifiedJavaType(ROW_CLASS));
+        row.setVisibility(JavaVisibility.PUBLIC);
+        row.setFinal(true);
+
+        Field index = new Field("index", FullyQualifiedJavaType.getIntInstance()); //$NON-NLS-1$
+        index.setVisibility(JavaVisibility.PRIVATE);
+        index.setFinal(true);
+        row.addField(index);
+
+        Method constructor = new Method(ROW_CLASS);
+        constructor.setConstructor(true);
+        constructor.setVisibility(JavaVisibility.PRIVATE);
+        constructor.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "index")); //$NON-NLS-1$
+        constructor.addBodyLine("this.index = index;"); //$NON-NLS-1$
+        row.addMethod(constructor);
+
+        // not named getIndex, which is the getter of a column named index
+        Method rowIndex = new Method("rowIndex"); //$NON-NLS-1$
+        rowIndex.setVisibility(JavaVisibility.PUBLIC);
+        rowIndex.setReturnType(FullyQualifiedJavaType.getIntInstance());
+        rowIndex.addBodyLine("return index;"); //$NON-NLS-1$
+        row.addMethod(rowIndex);
+
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            FullyQualifiedJavaType type = introspectedColumn.getFullyQualifiedJavaType();
+            String getterName = getGetterMethodName(introspectedColumn.getJavaProperty(), type);
+            Method getter = new Method(getterName);
+            getter.setVisibility(JavaVisibility.PUBLIC);
+            getter.setReturnType(type);
+            // the getters of the row hide the getters of the batch taking a row index
+            getter.addBodyLine("return " + batchName + ".this." + getterName + "(index);"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            row.addMethod(getter);
+        }
+
+        Method toRecord = new Method("toRecord"); //$NON-NLS-1$
+        toRecord.setVisibility(JavaVisibility.PUBLIC);
+        toRecord.setReturnType(recordType);
+        toRecord.addBodyLine("return " + batchName + ".this.toRecord(index);"); //$NON-NLS-1$ //$NON-NLS-2$
+        row.addMethod(toRecord);
+        return row;
+    }
+
+
+    private static String getPrimitiveType(IntrospectedColumn introspectedColumn) {
+        return PRIMITIVE_TYPES.get(introspectedColumn.getFullyQualifiedJavaType().getFullyQualifiedName());
+    }
+
+    private static String getStorageType(IntrospectedColumn introspectedColumn) {
+        String primitiveType = getPrimitiveType(introspectedColumn);
+        return primitiveType != null ? primitiveType : introspectedColumn.getFullyQualifiedJavaType().getShortName();
+    }
+
+    /**
+     * Primitive values of non-primitive columns need a bitmap to store their null values.
+     * @param introspectedColumn
+     * @return
+     */
+    private static boolean hasNullBitmap(IntrospectedColumn introspectedColumn) {
+        return getPrimitiveType(introspectedColumn) != null && !introspectedColumn.getFullyQualifiedJavaType().isPrimitive();
+    }
+
+    private static boolean isDate(IntrospectedColumn introspectedColumn) {
+        return "java.util.Date".equals(introspectedColumn.getFullyQualifiedJavaType().getFullyQualifiedName()); //$NON-NLS-1$
+    }
+
+    private static String getStoreExpression(IntrospectedColumn introspectedColumn, String value) {
+        return isDate(introspectedColumn) ? value + ".getTime()" : value; //$NON-NLS-1$
+    }
+
+    private static String getLoadExpression(IntrospectedColumn introspectedColumn, String value) {
+        return isDate(introspectedColumn) ? "new Date(" + value + ")" : value; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static String getNewArray(IntrospectedColumn introspectedColumn, String length) {
+        String storageType = getStorageType(introspectedColumn);
+        int dimensions = storageType.indexOf('[');
+        if(dimensions < 0) {
+            return "new " + storageType + "[" + length + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+        return "new " + storageType.substring(0, dimensions) + "[" + length + "]" + storageType.substring(dimensions); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    private static String getNullTest(IntrospectedColumn introspectedColumn) {
+        return "(" + getNullsField(introspectedColumn) + "[row >>> 6] & 1L << row) != 0"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private static String getValuesField(IntrospectedColumn introspectedColumn) {
+        return introspectedColumn.getJavaProperty() + "Values"; //$NON-NLS-1$
+    }
+
+    private static String getNullsField(IntrospectedColumn introspectedColumn) {
+        return introspectedColumn.getJavaProperty() + "Nulls"; //$NON-NLS-1$
+    }
+
+    private static String getCapitalizedProperty(IntrospectedColumn introspectedColumn) {
+        // the getter of a String property is always get<Property>
+        return getGetterMethodName(introspectedColumn.getJavaProperty(), FullyQualifiedJavaType.getStringInstance()).substring(3);
+    }
+
+    /**
+     * Returns the constructor of an immutable or constructor based record class whose parameters are named after
+     * exactly the given columns, ignoring the constructors other plugins may add.
+     * @param topLevelClass
+     * @param introspectedColumns
+     * @param introspectedTable
+     * @return
+     */
+    private static Optional<Method> findArgumentsConstructor(TopLevelClass topLevelClass, List<IntrospectedColumn> introspectedColumns,
+                                                             IntrospectedTable introspectedTable) {
+        if(!introspectedTable.isImmutable() && !introspectedTable.isConstructorBased()) {
+            return Optional.empty();
+        }
+        Set<String> properties = new HashSet<>();
+        introspectedColumns.forEach(introspectedColumn -> properties.add(introspectedColumn.getJavaProperty()));
+        return topLevelClass.getMethods().stream()
+                .filter(method -> method.isConstructor() && method.getParameters().size() == properties.size()
+                        && method.getParameters().stream().allMatch(parameter -> properties.contains(parameter.getName())))
+                .findFirst();
+    }
+}
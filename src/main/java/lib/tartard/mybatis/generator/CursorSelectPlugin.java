@@ -0,0 +1,220 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.Element;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+
+import java.util.*;
+
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * Add streaming variants of the select methods of the clients, to read large tables with a constant memory use.
+ * <p>
+ * For each of the <code>selectByExample</code>, <code>selectByExampleWithBLOBs</code> and <code>selectAll</code>
+ * methods, two methods are added to the client:
+ * <ul>
+ *     <li><code>selectByExampleWithCursor</code> returning a MyBatis <code>Cursor</code>, which must be closed, or
+ *     consumed, before the session is closed</li>
+ *     <li><code>selectByExampleWithHandler</code> passing the records one by one to a <code>ResultHandler</code></li>
+ * </ul>
+ * Their statements are copies of the original one, with the <code>fetchSize</code> (1000 by default) and the
+ * <code>resultSetType</code> (<code>FORWARD_ONLY</code> by default) properties as hints for the driver. Both properties
+ * can be set on the plugin, and overridden by the properties of the same name of a table.
+ *
+ * @author Alexandre Hausherr
+ * @version 1
+ */
+public class CursorSelectPlugin extends PluginAdapter {
+
+    private static final String CURSOR_SUFFIX = "WithCursor";
+
+    private static final String HANDLER_SUFFIX = "WithHandler";
+
+    private static final String DEFAULT_FETCH_SIZE = "1000";
+
+    private static final String DEFAULT_RESULT_SET_TYPE = "FORWARD_ONLY";
+
+    private static final Set<String> RESULT_SET_TYPES = new HashSet<>(Arrays.asList("DEFAULT", "FORWARD_ONLY", "SCROLL_INSENSITIVE", "SCROLL_SENSITIVE"));
+
+    private static final FullyQualifiedJavaType CURSOR = new FullyQualifiedJavaType("org.apache.ibatis.cursor.Cursor");
+    private static final FullyQualifiedJavaType RESULT_HANDLER = new FullyQualifiedJavaType("org.apache.ibatis.session.ResultHandler");
+    private static final FullyQualifiedJavaType OPTIONS = new FullyQualifiedJavaType("org.apache.ibatis.annotations.Options");
+    private static final FullyQualifiedJavaType RESULT_SET_TYPE = new FullyQualifiedJavaType("org.apache.ibatis.mapping.ResultSetType");
+    private static final FullyQualifiedJavaType RESULT_TYPE = new FullyQualifiedJavaType("org.apache.ibatis.annotations.ResultType");
+
+    private String fetchSize;
+
+    private String resultSetType;
+
+
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        fetchSize = properties.getProperty("fetchSize", DEFAULT_FETCH_SIZE);
+        resultSetType = properties.getProperty("resultSetType", DEFAULT_RESULT_SET_TYPE);
+    }
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        return validateHints(fetchSize, resultSetType, "", warnings);
+    }
+
+    private static boolean validateHints(String fetchSize, String resultSetType, String source, List<String> warnings) {
+        try {
+            Integer.parseInt(fetchSize);
+        } catch(NumberFormatException e) {
+            warnings.add("CursorSelectPlugin: fetchSize" + source + " must be an integer, was " + fetchSize);
+            return false;
+        }
+        if(!RESULT_SET_TYPES.contains(resultSetType)) {
+            warnings.add("CursorSelectPlugin: resultSetType" + source + " must be one of " + RESULT_SET_TYPES + ", was " + resultSetType);
+            return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Add the streaming methods after the select methods of the client.
+     * @param interfaze
+     * @param topLevelClass
+     * @param introspectedTable
+     * @return
+     */
+    @Override
+    public boolean clientGenerated(Interface interfaze, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        Set<String> selectIds = getSelectStatementIds(introspectedTable);
+        for(Method method : new ArrayList<>(interfaze.getMethods())) {
+            if(selectIds.contains(method.getName())) {
+                addStreamingMethods(method, interfaze, introspectedTable);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the statements of the streaming methods, when the client uses XML statements.
+     * @param document
+     * @param introspectedTable
+     * @return
+     */
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        Set<String> selectIds = getSelectStatementIds(introspectedTable);
+        XmlElement root = document.getRootElement();
+        for(Element element : new ArrayList<>(root.getElements())) {
+            if(element instanceof XmlElement && "select".equals(((XmlElement) element).getName())) {
+                String id = getAttribute((XmlElement) element, "id");
+                if(selectIds.contains(id)) {
+                    root.addElement(copyStatement((XmlElement) element, id + CURSOR_SUFFIX, introspectedTable));
+                    root.addElement(copyStatement((XmlElement) element, id + HANDLER_SUFFIX, introspectedTable));
+                }
+            }
+        }
+        return true;
+    }
+
+
+    private static Set<String> getSelectStatementIds(IntrospectedTable introspectedTable) {
+        return new HashSet<>(Arrays.asList(introspectedTable.getSelectByExampleStatementId(),
+                introspectedTable.getSelectByExampleWithBLOBsStatementId(),
+                introspectedTable.getSelectAllStatementId()));
+    }
+
+    private void addStreamingMethods(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        List<FullyQualifiedJavaType> typeArguments = method.getReturnType().getTypeArguments();
+        if(typeArguments.size() != 1) {
+            return;
+        }
+        FullyQualifiedJavaType recordType = typeArguments.get(0);
+        boolean annotated = !method.getAnnotations().isEmpty();
+
+        Method cursorMethod = new Method(method);
+        cursorMethod.setName(method.getName() + CURSOR_SUFFIX);
+        FullyQualifiedJavaType cursorType = new FullyQualifiedJavaType(CURSOR.getFullyQualifiedName());
+        cursorType.addTypeArgument(recordType);
+        cursorMethod.setReturnType(cursorType);
+        interfaze.addImportedType(CURSOR);
+
+        Method handlerMethod = new Method(method);
+        handlerMethod.setName(method.getName() + HANDLER_SUFFIX);
+        handlerMethod.setReturnType(null);
+        FullyQualifiedJavaType handlerType = new FullyQualifiedJavaType(RESULT_HANDLER.getFullyQualifiedName());
+        handlerType.addTypeArgument(recordType);
+        handlerMethod.addParameter(new Parameter(handlerType, "handler"));
+        interfaze.addImportedType(RESULT_HANDLER);
+
+        if(annotated) {
+            String options = "@Options(fetchSize = " + getFetchSize(introspectedTable)
+                    + ", resultSetType = ResultSetType." + getResultSetType(introspectedTable) + ")";
+            cursorMethod.addAnnotation(options);
+            handlerMethod.addAnnotation(options);
+            // the result type of a void method cannot be inferred from its signature
+            handlerMethod.addAnnotation("@ResultType(" + recordType.getShortNameWithoutTypeArguments() + ".class)");
+            interfaze.addImportedType(OPTIONS);
+            interfaze.addImportedType(RESULT_SET_TYPE);
+            interfaze.addImportedType(RESULT_TYPE);
+        }
+
+        interfaze.addMethod(cursorMethod);
+        interfaze.addMethod(handlerMethod);
+    }
+
+    private XmlElement copyStatement(XmlElement element, String id, IntrospectedTable introspectedTable) {
+        XmlElement copy = new XmlElement(element);
+        List<Attribute> attributes = copy.getAttributes();
+        for(int i = 0; i < attributes.size(); i++) {
+            if("id".equals(attributes.get(i).getName())) {
+                attributes.set(i, new Attribute("id", id));
+            }
+        }
+        copy.addAttribute(new Attribute("fetchSize", getFetchSize(introspectedTable)));
+        copy.addAttribute(new Attribute("resultSetType", getResultSetType(introspectedTable)));
+        return copy;
+    }
+
+    private static String getAttribute(XmlElement element, String name) {
+        for(Attribute attribute : element.getAttributes()) {
+            if(name.equals(attribute.getName())) {
+                return attribute.getValue();
+            }
+        }
+        return null;
+    }
+
+    private String getFetchSize(IntrospectedTable introspectedTable) {
+        String tableFetchSize = introspectedTable.getTableConfigurationProperty("fetchSize");
+        if(stringHasValue(tableFetchSize)) {
+            checkTableHints(tableFetchSize, resultSetType, introspectedTable);
+            return tableFetchSize;
+        }
+        return fetchSize;
+    }
+
+    private String getResultSetType(IntrospectedTable introspectedTable) {
+        String tableResultSetType = introspectedTable.getTableConfigurationProperty("resultSetType");
+        if(stringHasValue(tableResultSetType)) {
+            checkTableHints(fetchSize, tableResultSetType, introspectedTable);
+            return tableResultSetType;
+        }
+        return resultSetType;
+    }
+
+    /**
+     * The table properties are only known once the tables are introspected, after the plugin has been validated.
+     * @param fetchSize
+     * @param resultSetType
+     * @param introspectedTable
+     */
+    private static void checkTableHints(String fetchSize, String resultSetType, IntrospectedTable introspectedTable) {
+        List<String> warnings = new ArrayList<>();
+        if(!validateHints(fetchSize, resultSetType, " of table " + introspectedTable.getFullyQualifiedTable(), warnings)) {
+            throw new IllegalArgumentException(warnings.get(0));
+        }
+    }
+}
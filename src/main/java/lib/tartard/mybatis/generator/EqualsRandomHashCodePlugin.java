@@ -2,9 +2,12 @@ package lib.tartard.mybatis.generator;
 
 import org.mybatis.generator.api.IntrospectedColumn;
 import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.dom.OutputUtilities;
+import org.mybatis.generator.api.dom.java.Field;
 import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
 import org.mybatis.generator.api.dom.java.JavaVisibility;
 import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
 import org.mybatis.generator.api.dom.java.TopLevelClass;
 import org.mybatis.generator.plugins.EqualsHashCodePlugin;
 
@@ -17,28 +20,344 @@ import static org.mybatis.generator.internal.util.StringUtility.isTrue;
 /**
  * Copy of the mybatis EqualsHashCode plugin with the ability of using a different prime number for each generated
  * hashCode method.
+ * <p>
+ * When the <code>cacheImmutableHashCode</code> property is set and the table is generated as immutable, the hash is
+ * computed once, stored in a private transient field and returned directly on subsequent calls. The generated
+ * <code>equals</code> method then compares the cached hashes before comparing the fields.
+ * <p>
+ * The <code>hashStrategy</code> property selects how the column hashes are combined:
+ * <ul>
+ *     <li><code>prime</code> (default): sequential small primes, starting at 2</li>
+ *     <li><code>largePrime</code>: sequential primes starting above 2^24, giving a better bit spread</li>
+ *     <li><code>murmur</code>: large primes followed by the murmur3 32 bits finalizer on the combined hash</li>
+ * </ul>
+ * By default the primes are allocated in the order the tables are processed. When the <code>deterministicPrime</code>
+ * property is set, the prime of each table is picked from a precomputed table of primes with the hash of its fully
+ * qualified name instead, so that the generated code does not depend on the other tables, and the plugin holds no
+ * mutable state during generation.
+ * <p>
+ * When the <code>optimizeEquals</code> property is set, the generated <code>equals</code> method compares the cheapest
+ * and most selective columns first (primitives, then primary key columns, then other objects, strings, and arrays or
+ * BLOBs last) and reads the fields declared in the class directly instead of calling their getters.
+ * <p>
+ * When the <code>primaryKeyIdentity</code> property is set, <code>equals</code> and <code>hashCode</code> only use the
+ * primary key columns. They are generated in the topmost class of the model hierarchy holding the primary key and
+ * inherited by the other classes. Tables without primary key still use all their columns.
  * 
  * @author Alexandre Hausherr
  */
 public class EqualsRandomHashCodePlugin extends EqualsHashCodePlugin {
     
+    private static final String CACHED_HASH_CODE_FIELD = "cachedHashCode"; //$NON-NLS-1$
+
+    private static final BigInteger LARGE_PRIME_SEED = BigInteger.ONE.shiftLeft(24);
+
+    private static final int PRIME_TABLE_SIZE = 256;
+
+    private static final int[] SMALL_PRIMES = computePrimes(BigInteger.ZERO);
+
+    private static final int[] LARGE_PRIMES = computePrimes(LARGE_PRIME_SEED);
+
+    private enum HashStrategy {
+        PRIME, LARGE_PRIME, MURMUR
+    }
+
     private boolean useEqualsHashCodeFromRoot;
 
+    private boolean cacheImmutableHashCode;
+
+    private boolean optimizeEquals;
+
+    private boolean primaryKeyIdentity;
+
+    private String hashStrategyProperty;
+
+    private HashStrategy hashStrategy;
+
+    private boolean deterministicPrime;
+
     private BigInteger lastPrime = BigInteger.ZERO;
     
     @Override
     public void setProperties(Properties properties) {
         super.setProperties(properties);
         useEqualsHashCodeFromRoot = isTrue(properties.getProperty("useEqualsHashCodeFromRoot")); //$NON-NLS-1$
+        cacheImmutableHashCode = isTrue(properties.getProperty("cacheImmutableHashCode")); //$NON-NLS-1$
+        optimizeEquals = isTrue(properties.getProperty("optimizeEquals")); //$NON-NLS-1$
+        primaryKeyIdentity = isTrue(properties.getProperty("primaryKeyIdentity")); //$NON-NLS-1$
+        deterministicPrime = isTrue(properties.getProperty("deterministicPrime")); //$NON-NLS-1$
+        hashStrategyProperty = properties.getProperty("hashStrategy", "prime"); //$NON-NLS-1$ //$NON-NLS-2$
+        switch (hashStrategyProperty) {
+            case "prime": //$NON-NLS-1$
+                hashStrategy = HashStrategy.PRIME;
+                lastPrime = BigInteger.ZERO;
+                break;
+            case "largePrime": //$NON-NLS-1$
+                hashStrategy = HashStrategy.LARGE_PRIME;
+                lastPrime = LARGE_PRIME_SEED;
+                break;
+            case "murmur": //$NON-NLS-1$
+                hashStrategy = HashStrategy.MURMUR;
+                lastPrime = LARGE_PRIME_SEED;
+                break;
+            default:
+                hashStrategy = null;
+        }
+    }
+
+    private static int[] computePrimes(BigInteger seed) {
+        int[] primes = new int[PRIME_TABLE_SIZE];
+        BigInteger prime = seed;
+        for (int i = 0; i < primes.length; i++) {
+            prime = prime.nextProbablePrime();
+            primes[i] = prime.intValue();
+        }
+        return primes;
+    }
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        if (hashStrategy == null) {
+            warnings.add("Unknown hashStrategy \"" + hashStrategyProperty //$NON-NLS-1$
+                    + "\" for plugin EqualsRandomHashCodePlugin, expected one of prime, largePrime, murmur"); //$NON-NLS-1$
+            return false;
+        }
+        return super.validate(warnings);
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass,
+                                                 IntrospectedTable introspectedTable) {
+        if (!isPrimaryKeyIdentity(introspectedTable)) {
+            return super.modelBaseRecordClassGenerated(topLevelClass, introspectedTable);
+        }
+        // otherwise equals and hashCode are inherited from the primary key class
+        if (!introspectedTable.getRules().generatePrimaryKeyClass()) {
+            generateEquals(topLevelClass, introspectedTable.getPrimaryKeyColumns(), introspectedTable);
+            generateHashCode(topLevelClass, introspectedTable.getPrimaryKeyColumns(), introspectedTable);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass,
+                                                      IntrospectedTable introspectedTable) {
+        if (!isPrimaryKeyIdentity(introspectedTable)) {
+            return super.modelRecordWithBLOBsClassGenerated(topLevelClass, introspectedTable);
+        }
+        // otherwise equals and hashCode are inherited from the base record class or the primary key class
+        if (!introspectedTable.getRules().generatePrimaryKeyClass()
+                && !introspectedTable.getRules().generateBaseRecordClass()) {
+            generateEquals(topLevelClass, introspectedTable.getPrimaryKeyColumns(), introspectedTable);
+            generateHashCode(topLevelClass, introspectedTable.getPrimaryKeyColumns(), introspectedTable);
+        }
+        return true;
+    }
+
+    private boolean isPrimaryKeyIdentity(IntrospectedTable introspectedTable) {
+        return primaryKeyIdentity && introspectedTable.hasPrimaryKeyColumns();
+    }
+
+    private boolean isHashCodeCached(IntrospectedTable introspectedTable) {
+        return cacheImmutableHashCode && introspectedTable.isImmutable();
+    }
+
+    /**
+     * Estimates the relative cost of comparing a column, lower values being compared first.
+     * @param introspectedColumn
+     * @param introspectedTable
+     * @return
+     */
+    private static int getComparisonCost(IntrospectedColumn introspectedColumn, IntrospectedTable introspectedTable) {
+        FullyQualifiedJavaType fqjt = introspectedColumn.getFullyQualifiedJavaType();
+        if (fqjt.isPrimitive()) {
+            return 0;
+        }
+        if (fqjt.isArray() || introspectedColumn.isBLOBColumn()) {
+            return 4;
+        }
+        if (introspectedTable.getPrimaryKeyColumns().contains(introspectedColumn)) {
+            return 1;
+        }
+        return introspectedColumn.isStringColumn() ? 3 : 2;
+    }
+
+    /**
+     * Returns the expression reading the column value: the field itself if it is declared in the generated class,
+     * its getter otherwise.
+     * @param introspectedColumn
+     * @param declaredFields
+     * @return
+     */
+    private String getValueAccessor(IntrospectedColumn introspectedColumn, Set<String> declaredFields) {
+        String property = introspectedColumn.getJavaProperty();
+        if (optimizeEquals && declaredFields.contains(property)) {
+            return property;
+        }
+        return getGetterMethodName(property, introspectedColumn.getFullyQualifiedJavaType()) + "()"; //$NON-NLS-1$
+    }
+
+    /**
+     * Generates an <code>equals</code> method that does a comparison of all fields.
+     *
+     * <p>If the hash code of the class is cached, the cached hashes are compared first so that most unequal
+     * instances are rejected without comparing any field.
+     *
+     * <p>If equals is optimized, the columns are compared in the order given by
+     * {@link #getComparisonCost(IntrospectedColumn, IntrospectedTable)}.
+     *
+     * @param topLevelClass
+     *            the class to which the method will be added
+     * @param introspectedColumns
+     *            column definitions of this class and any superclass of this
+     *            class
+     * @param introspectedTable
+     *            the table corresponding to this class
+     */
+    @Override
+    protected void generateEquals(TopLevelClass topLevelClass,
+                                  List<IntrospectedColumn> introspectedColumns,
+                                  IntrospectedTable introspectedTable) {
+        Method method = new Method();
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        method.setName("equals"); //$NON-NLS-1$
+        method.addParameter(new Parameter(FullyQualifiedJavaType.getObjectInstance(), "that")); //$NON-NLS-1$
+        if (introspectedTable.isJava5Targeted()) {
+            method.addAnnotation("@Override"); //$NON-NLS-1$
+        }
+
+        if (introspectedTable.getTargetRuntime() == IntrospectedTable.TargetRuntime.MYBATIS3_DSQL) {
+            context.getCommentGenerator().addGeneralMethodAnnotation(method, introspectedTable,
+                    topLevelClass.getImportedTypes());
+        } else {
+            context.getCommentGenerator().addGeneralMethodComment(method,
+                    introspectedTable);
+        }
+
+        method.addBodyLine("if (this == that) {"); //$NON-NLS-1$
+        method.addBodyLine("return true;"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+
+        method.addBodyLine("if (that == null) {"); //$NON-NLS-1$
+        method.addBodyLine("return false;"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+
+        method.addBodyLine("if (getClass() != that.getClass()) {"); //$NON-NLS-1$
+        method.addBodyLine("return false;"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(topLevelClass.getType().getShortName());
+        sb.append(" other = ("); //$NON-NLS-1$
+        sb.append(topLevelClass.getType().getShortName());
+        sb.append(") that;"); //$NON-NLS-1$
+        method.addBodyLine(sb.toString());
+
+        if (isHashCodeCached(introspectedTable)) {
+            method.addBodyLine("if (hashCode() != other.hashCode()) {"); //$NON-NLS-1$
+            method.addBodyLine("return false;"); //$NON-NLS-1$
+            method.addBodyLine("}"); //$NON-NLS-1$
+        }
+
+        if (useEqualsHashCodeFromRoot && topLevelClass.getSuperClass() != null) {
+            method.addBodyLine("if (!super.equals(other)) {"); //$NON-NLS-1$
+            method.addBodyLine("return false;"); //$NON-NLS-1$
+            method.addBodyLine("}"); //$NON-NLS-1$
+        }
+
+        List<IntrospectedColumn> comparedColumns = introspectedColumns;
+        Set<String> declaredFields = new HashSet<>();
+        if (optimizeEquals) {
+            comparedColumns = new ArrayList<>(introspectedColumns);
+            comparedColumns.sort(Comparator.comparingInt(
+                    introspectedColumn -> getComparisonCost(introspectedColumn, introspectedTable)));
+            for (Field field : topLevelClass.getFields()) {
+                if (!field.isStatic()) {
+                    declaredFields.add(field.getName());
+                }
+            }
+        }
+
+        boolean first = true;
+        Iterator<IntrospectedColumn> iter = comparedColumns.iterator();
+        while (iter.hasNext()) {
+            IntrospectedColumn introspectedColumn = iter.next();
+
+            sb.setLength(0);
+
+            if (first) {
+                sb.append("return ("); //$NON-NLS-1$
+                first = false;
+            } else {
+                OutputUtilities.javaIndent(sb, 1);
+                sb.append("&& ("); //$NON-NLS-1$
+            }
+
+            String accessor = getValueAccessor(introspectedColumn, declaredFields);
+
+            if (introspectedColumn.getFullyQualifiedJavaType().isPrimitive()) {
+                sb.append("this."); //$NON-NLS-1$
+                sb.append(accessor);
+                sb.append(" == "); //$NON-NLS-1$
+                sb.append("other."); //$NON-NLS-1$
+                sb.append(accessor);
+                sb.append(")"); //$NON-NLS-1$
+            } else if (introspectedColumn.getFullyQualifiedJavaType().isArray()) {
+                topLevelClass.addImportedType("java.util.Arrays"); //$NON-NLS-1$
+                sb.append("Arrays.equals(this."); //$NON-NLS-1$
+                sb.append(accessor);
+                sb.append(", "); //$NON-NLS-1$
+                sb.append("other."); //$NON-NLS-1$
+                sb.append(accessor);
+                sb.append("))"); //$NON-NLS-1$
+            } else {
+                sb.append("this."); //$NON-NLS-1$
+                sb.append(accessor);
+                sb.append(" == null ? other."); //$NON-NLS-1$
+                sb.append(accessor);
+                sb.append(" == null : this."); //$NON-NLS-1$
+                sb.append(accessor);
+                sb.append(".equals(other."); //$NON-NLS-1$
+                sb.append(accessor);
+                sb.append("))"); //$NON-NLS-1$
+            }
+
+            if (!iter.hasNext()) {
+                sb.append(';');
+            }
+
+            method.addBodyLine(sb.toString());
+        }
+
+        topLevelClass.addMethod(method);
     }
     
     
+    private int getPrime(IntrospectedTable introspectedTable) {
+        if (deterministicPrime) {
+            int[] primes = hashStrategy == HashStrategy.PRIME ? SMALL_PRIMES : LARGE_PRIMES;
+            int hash = introspectedTable.getFullyQualifiedTable().toString().hashCode();
+            return primes[Math.floorMod(hash ^ (hash >>> 16), primes.length)];
+        }
+
+        BigInteger prime = lastPrime.nextProbablePrime();
+        if(prime.compareTo(BigInteger.valueOf(Long.valueOf(Integer.MAX_VALUE))) >= 0) {
+            throw new RuntimeException("Reached MAX integer for random prime number generation. Cannot continue.");
+        }
+        lastPrime = prime;
+        return prime.intValue();
+    }
+
     /**
      * Generates a <code>hashCode</code> method that includes all fields.
      *
      * <p>Note that this implementation is based on the eclipse foundation hashCode
      * generator.
      *
+     * <p>If the hash code of the class is cached, the hash is computed on the first call only. As for
+     * {@link String#hashCode()}, a hash evaluating to zero is recomputed on each call.
+     *
      * @param topLevelClass
      *            the class to which the method will be added
      * @param introspectedColumns
@@ -66,15 +385,22 @@ public class EqualsRandomHashCodePlugin extends EqualsHashCodePlugin {
                     introspectedTable);
         }
 
-        BigInteger prime = lastPrime.nextProbablePrime();
-        if(prime.compareTo(BigInteger.valueOf(Long.valueOf(Integer.MAX_VALUE))) >= 0) {
-            throw new RuntimeException("Reached MAX integer for random prime number generation. Cannot continue.");
+        boolean cached = isHashCodeCached(introspectedTable);
+        if (cached) {
+            Field field = new Field(CACHED_HASH_CODE_FIELD, FullyQualifiedJavaType.getIntInstance());
+            field.setVisibility(JavaVisibility.PRIVATE);
+            field.setTransient(true);
+            topLevelClass.addField(field);
+
+            method.addBodyLine("int result = " + CACHED_HASH_CODE_FIELD + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+            method.addBodyLine("if (result != 0) {"); //$NON-NLS-1$
+            method.addBodyLine("return result;"); //$NON-NLS-1$
+            method.addBodyLine("}"); //$NON-NLS-1$
         }
-        method.addBodyLine("final int prime = " + prime.toString() + ";"); //$NON-NLS-1$
-        
-        lastPrime = prime;
+
+        method.addBodyLine("final int prime = " + getPrime(introspectedTable) + ";"); //$NON-NLS-1$
         
-        method.addBodyLine("int result = 1;"); //$NON-NLS-1$
+        method.addBodyLine(cached ? "result = 1;" : "int result = 1;"); //$NON-NLS-1$ //$NON-NLS-2$
 
         if (useEqualsHashCodeFromRoot && topLevelClass.getSuperClass() != null) {
             method.addBodyLine("result = prime * result + super.hashCode();"); //$NON-NLS-1$
@@ -164,6 +490,18 @@ public class EqualsRandomHashCodePlugin extends EqualsHashCodePlugin {
             }
         }
 
+        if (hashStrategy == HashStrategy.MURMUR) {
+            // murmur3 fmix32 finalizer, so that every bit of the combined hash affects the low order bits
+            method.addBodyLine("result ^= result >>> 16;"); //$NON-NLS-1$
+            method.addBodyLine("result *= 0x85ebca6b;"); //$NON-NLS-1$
+            method.addBodyLine("result ^= result >>> 13;"); //$NON-NLS-1$
+            method.addBodyLine("result *= 0xc2b2ae35;"); //$NON-NLS-1$
+            method.addBodyLine("result ^= result >>> 16;"); //$NON-NLS-1$
+        }
+
+        if (cached) {
+            method.addBodyLine(CACHED_HASH_CODE_FIELD + " = result;"); //$NON-NLS-1$
+        }
         method.addBodyLine("return result;"); //$NON-NLS-1$
 
         topLevelClass.addMethod(method);
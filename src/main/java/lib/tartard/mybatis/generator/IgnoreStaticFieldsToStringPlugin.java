@@ -1,16 +1,35 @@
 package lib.tartard.mybatis.generator;
 
+import org.mybatis.generator.api.IntrospectedColumn;
 import org.mybatis.generator.api.IntrospectedTable;
 import org.mybatis.generator.api.PluginAdapter;
 import org.mybatis.generator.api.dom.java.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import static org.mybatis.generator.internal.util.StringUtility.isTrue;
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
 
 /**
  * Copy of the Mybatis ToStringPlugin with the possibility to ignore static fields in the toString method.
+ * <p>
+ * The generated StringBuilder is presized from the field names and column lengths. When the
+ * <code>generateAppendTo</code> property is set, the fields are rendered by a generated
+ * <code>appendTo(StringBuilder)</code> method, so that callers can reuse their own buffer, and toString delegates to it.
+ * The class name is written as a literal, unless the <code>useClassNameLiteral</code> property is set to false, in which
+ * case it is read with <code>getClass().getSimpleName()</code> at runtime.
+ * <p>
+ * The rendered output can be bounded, based on the column metadata at generation time:
+ * <ul>
+ *     <li><code>excludeBLOBColumns</code>: BLOB columns are not rendered</li>
+ *     <li><code>maxColumnLength</code>: character columns longer than this are truncated, and only the first elements
+ *     of array columns are rendered</li>
+ *     <li><code>maxLength</code>: the whole output is truncated to this length, the fields being no longer appended once
+ *     it is reached, and a surrogate pair is never split</li>
+ * </ul>
  * 
  * @author Alexandre Hausherr
  */
@@ -21,6 +40,16 @@ public class IgnoreStaticFieldsToStringPlugin extends PluginAdapter {
     private boolean ignoreStaticFields;
     
     private boolean appendHashcode;
+
+    private boolean generateAppendTo;
+
+    private boolean useClassNameLiteral;
+
+    private boolean excludeBLOBColumns;
+
+    private int maxColumnLength;
+
+    private int maxLength;
     
     @Override
     public void setProperties(Properties properties) {
@@ -28,10 +57,42 @@ public class IgnoreStaticFieldsToStringPlugin extends PluginAdapter {
         useToStringFromRoot = isTrue(properties.getProperty("useToStringFromRoot")); //$NON-NLS-1$
         ignoreStaticFields = isTrue(properties.getProperty("ignoreStaticFields"));
         appendHashcode = isTrue(properties.getProperty("appendHashcode"));
+        generateAppendTo = isTrue(properties.getProperty("generateAppendTo")); //$NON-NLS-1$
+        useClassNameLiteral = isTrue(properties.getProperty("useClassNameLiteral", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+        excludeBLOBColumns = isTrue(properties.getProperty("excludeBLOBColumns")); //$NON-NLS-1$
+        maxColumnLength = getLengthProperty(properties, "maxColumnLength"); //$NON-NLS-1$
+        maxLength = getLengthProperty(properties, "maxLength"); //$NON-NLS-1$
+    }
+
+    /**
+     * Reads a positive length property.
+     * @param properties
+     * @param name
+     * @return the length, 0 if the property is not set, -1 if it is not a positive integer
+     */
+    private static int getLengthProperty(Properties properties, String name) {
+        String value = properties.getProperty(name);
+        if (!stringHasValue(value)) {
+            return 0;
+        }
+        try {
+            int length = Integer.parseInt(value.trim());
+            return length > 0 ? length : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     @Override
     public boolean validate(List<String> warnings) {
+        if (maxColumnLength < 0 || maxLength < 0) {
+            warnings.add("Properties maxColumnLength and maxLength of plugin IgnoreStaticFieldsToStringPlugin must be positive integers"); //$NON-NLS-1$
+            return false;
+        }
+        if (maxLength > 0 && maxLength < 4) {
+            warnings.add("Property maxLength of plugin IgnoreStaticFieldsToStringPlugin must be at least 4"); //$NON-NLS-1$
+            return false;
+        }
         return true;
     }
 
@@ -58,6 +119,11 @@ public class IgnoreStaticFieldsToStringPlugin extends PluginAdapter {
 
     private void generateToString(IntrospectedTable introspectedTable,
                                   TopLevelClass topLevelClass) {
+        Map<String, IntrospectedColumn> columnsByProperty = new HashMap<>();
+        for (IntrospectedColumn introspectedColumn : introspectedTable.getAllColumns()) {
+            columnsByProperty.put(introspectedColumn.getJavaProperty(), introspectedColumn);
+        }
+
         Method method = new Method();
         method.setVisibility(JavaVisibility.PUBLIC);
         method.setReturnType(FullyQualifiedJavaType.getStringInstance());
@@ -65,40 +131,237 @@ public class IgnoreStaticFieldsToStringPlugin extends PluginAdapter {
         if (introspectedTable.isJava5Targeted()) {
             method.addAnnotation("@Override"); //$NON-NLS-1$
         }
+        addMethodComment(method, introspectedTable, topLevelClass);
 
-        if (introspectedTable.getTargetRuntime() == IntrospectedTable.TargetRuntime.MYBATIS3_DSQL) {
-            context.getCommentGenerator().addGeneralMethodAnnotation(method,
-                    introspectedTable, topLevelClass.getImportedTypes());
+        String className = topLevelClass.getType().getShortNameWithoutTypeArguments();
+        int capacity = className.length() + 3;
+        if(appendHashcode) {
+            capacity += 18;
+        }
+        for (Field field : topLevelClass.getFields()) {
+            if(isRendered(field, columnsByProperty.get(field.getName()))) {
+                capacity += field.getName().length() + 3
+                        + estimateValueLength(field, columnsByProperty.get(field.getName()));
+            }
+        }
+        boolean appendSuper = useToStringFromRoot && topLevelClass.getSuperClass() != null;
+        if (appendSuper) {
+            capacity += 64;
+        }
+        if (maxLength > 0) {
+            capacity = Math.min(capacity, maxLength);
+        }
+
+        Method appendMethod = method;
+        if (generateAppendTo) {
+            method.addBodyLine("return appendTo(new StringBuilder(" + capacity + ")).toString();"); //$NON-NLS-1$ //$NON-NLS-2$
+
+            FullyQualifiedJavaType stringBuilder = new FullyQualifiedJavaType("java.lang.StringBuilder"); //$NON-NLS-1$
+            appendMethod = new Method();
+            appendMethod.setVisibility(JavaVisibility.PUBLIC);
+            appendMethod.setReturnType(stringBuilder);
+            appendMethod.setName("appendTo"); //$NON-NLS-1$
+            appendMethod.addParameter(new Parameter(stringBuilder, "sb")); //$NON-NLS-1$
+            if (introspectedTable.isJava5Targeted() && topLevelClass.getSuperClass() != null
+                    && isGeneratedModelClass(topLevelClass.getSuperClass(), introspectedTable)) {
+                // the generated super class has its own appendTo method
+                appendMethod.addAnnotation("@Override"); //$NON-NLS-1$
+            }
+            addMethodComment(appendMethod, introspectedTable, topLevelClass);
         } else {
-            context.getCommentGenerator().addGeneralMethodComment(method,
-                    introspectedTable);
+            method.addBodyLine("StringBuilder sb = new StringBuilder(" + capacity + ");"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        if (maxLength > 0) {
+            appendMethod.addBodyLine("int start = sb.length();"); //$NON-NLS-1$
         }
 
-        method.addBodyLine("StringBuilder sb = new StringBuilder();"); //$NON-NLS-1$
-        method.addBodyLine("sb.append(getClass().getSimpleName());"); //$NON-NLS-1$
-        method.addBodyLine("sb.append(\" [\");"); //$NON-NLS-1$
+        if (useClassNameLiteral) {
+            appendMethod.addBodyLine("sb.append(\"" + className + "\");"); //$NON-NLS-1$ //$NON-NLS-2$
+        } else {
+            appendMethod.addBodyLine("sb.append(getClass().getSimpleName());"); //$NON-NLS-1$
+        }
+        appendMethod.addBodyLine("sb.append(\" [\");"); //$NON-NLS-1$
         if(appendHashcode) {
-            method.addBodyLine("sb.append(\"Hash = \").append(hashCode());"); //$NON-NLS-1$
+            appendMethod.addBodyLine("sb.append(\"Hash = \").append(hashCode());"); //$NON-NLS-1$
         }
         StringBuilder sb = new StringBuilder();
         for (Field field : topLevelClass.getFields()) {
-            if(!(ignoreStaticFields && field.isStatic())) {
+            IntrospectedColumn introspectedColumn = columnsByProperty.get(field.getName());
+            if(isRendered(field, introspectedColumn)) {
                 String property = field.getName();
                 sb.setLength(0);
                 sb.append("sb.append(\"").append(", ").append(property) //$NON-NLS-1$ //$NON-NLS-2$
-                        .append("=\")").append(".append(").append(property) //$NON-NLS-1$ //$NON-NLS-2$
-                        .append(");"); //$NON-NLS-1$
-                method.addBodyLine(sb.toString());
+                        .append("=\")"); //$NON-NLS-1$
+                if (maxColumnLength > 0 && field.getType().isArray()) {
+                    appendMethod.addBodyLine(sb.append(';').toString());
+                    addTruncatedArrayLines(appendMethod, property);
+                } else if (maxColumnLength > 0 && isTruncatedString(field, introspectedColumn)) {
+                    appendMethod.addBodyLine(sb.append(';').toString());
+                    addTruncatedStringLines(appendMethod, property);
+                } else {
+                    sb.append(".append(").append(property) //$NON-NLS-1$
+                            .append(");"); //$NON-NLS-1$
+                    appendMethod.addBodyLine(sb.toString());
+                }
+                addLengthCheck(appendMethod);
             }
         }
 
-        method.addBodyLine("sb.append(\"]\");"); //$NON-NLS-1$
-        if (useToStringFromRoot && topLevelClass.getSuperClass() != null) {
-            method.addBodyLine("sb.append(\", from super class \");"); //$NON-NLS-1$
-            method.addBodyLine("sb.append(super.toString());"); //$NON-NLS-1$
+        appendMethod.addBodyLine("sb.append(\"]\");"); //$NON-NLS-1$
+        if (appendSuper) {
+            appendMethod.addBodyLine("sb.append(\", from super class \");"); //$NON-NLS-1$
+            if (generateAppendTo && isGeneratedModelClass(topLevelClass.getSuperClass(), introspectedTable)) {
+                // super.toString() would call back this appendTo method
+                appendMethod.addBodyLine("super.appendTo(sb);"); //$NON-NLS-1$
+            } else {
+                appendMethod.addBodyLine("sb.append(super.toString());"); //$NON-NLS-1$
+            }
         }
-        method.addBodyLine("return sb.toString();"); //$NON-NLS-1$
+        addLengthCheck(appendMethod);
 
-        topLevelClass.addMethod(method);
+        if (generateAppendTo) {
+            appendMethod.addBodyLine("return sb;"); //$NON-NLS-1$
+            topLevelClass.addMethod(method);
+            topLevelClass.addMethod(appendMethod);
+        } else {
+            method.addBodyLine("return sb.toString();"); //$NON-NLS-1$
+            topLevelClass.addMethod(method);
+        }
+        if (maxLength > 0) {
+            topLevelClass.addMethod(generateTruncate());
+        }
+    }
+
+    /**
+     * Stop rendering as soon as the output exceeds maxLength, so that the remaining fields are not appended.
+     * @param method
+     */
+    private void addLengthCheck(Method method) {
+        if (maxLength > 0) {
+            method.addBodyLine("if (sb.length() - start > " + maxLength + ") {"); //$NON-NLS-1$ //$NON-NLS-2$
+            method.addBodyLine(generateAppendTo ? "return truncate(sb, start);" : "return truncate(sb, start).toString();"); //$NON-NLS-1$ //$NON-NLS-2$
+            method.addBodyLine("}"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Generate the method truncating the output to maxLength, backing off one char rather than splitting a surrogate
+     * pair.
+     * @return
+     */
+    private Method generateTruncate() {
+        FullyQualifiedJavaType stringBuilder = new FullyQualifiedJavaType("java.lang.StringBuilder"); //$NON-NLS-1$
+        Method method = new Method("truncate"); //$NON-NLS-1$
+        method.setVisibility(JavaVisibility.PRIVATE);
+        method.setStatic(true);
+        method.setReturnType(stringBuilder);
+        method.addParameter(new Parameter(stringBuilder, "sb")); //$NON-NLS-1$
+        method.addParameter(new Parameter(FullyQualifiedJavaType.getIntInstance(), "start")); //$NON-NLS-1$
+        method.addBodyLine("int end = start + " + (maxLength - 3) + ";"); //$NON-NLS-1$ //$NON-NLS-2$
+        method.addBodyLine("if (Character.isHighSurrogate(sb.charAt(end - 1))) {"); //$NON-NLS-1$
+        method.addBodyLine("end--;"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+        method.addBodyLine("sb.setLength(end);"); //$NON-NLS-1$
+        method.addBodyLine("return sb.append(\"...\");"); //$NON-NLS-1$
+        return method;
+    }
+
+    private boolean isRendered(Field field, IntrospectedColumn introspectedColumn) {
+        if (ignoreStaticFields && field.isStatic()) {
+            return false;
+        }
+        return !(excludeBLOBColumns && introspectedColumn != null && introspectedColumn.isBLOBColumn());
+    }
+
+    /**
+     * A character field needs truncation if its column may hold more than maxColumnLength characters. Columns with
+     * an unknown length and CLOBs are always truncated.
+     * @param field
+     * @param introspectedColumn
+     * @return
+     */
+    private boolean isTruncatedString(Field field, IntrospectedColumn introspectedColumn) {
+        if (!"java.lang.String".equals(field.getType().getFullyQualifiedName())) { //$NON-NLS-1$
+            return false;
+        }
+        return introspectedColumn == null || introspectedColumn.isBLOBColumn()
+                || introspectedColumn.getLength() <= 0 || introspectedColumn.getLength() > maxColumnLength;
+    }
+
+    private void addTruncatedStringLines(Method method, String property) {
+        method.addBodyLine("if (" + property + " != null && " + property + ".length() > " + maxColumnLength + ") {"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        method.addBodyLine("sb.append(" + property + ", 0, " + maxColumnLength + ").append(\"...\");"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        method.addBodyLine("} else {"); //$NON-NLS-1$
+        method.addBodyLine("sb.append(" + property + ");"); //$NON-NLS-1$ //$NON-NLS-2$
+        method.addBodyLine("}"); //$NON-NLS-1$
+    }
+
+    private void addTruncatedArrayLines(Method method, String property) {
+        method.addBodyLine("if (" + property + " == null) {"); //$NON-NLS-1$ //$NON-NLS-2$
+        method.addBodyLine("sb.append(\"null\");"); //$NON-NLS-1$
+        method.addBodyLine("} else {"); //$NON-NLS-1$
+        method.addBodyLine("sb.append('[');"); //$NON-NLS-1$
+        method.addBodyLine("for (int i = 0; i < " + property + ".length && i < " + maxColumnLength + "; i++) {"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        method.addBodyLine("if (i > 0) {"); //$NON-NLS-1$
+        method.addBodyLine("sb.append(\", \");"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+        method.addBodyLine("sb.append(" + property + "[i]);"); //$NON-NLS-1$ //$NON-NLS-2$
+        method.addBodyLine("}"); //$NON-NLS-1$
+        method.addBodyLine("if (" + property + ".length > " + maxColumnLength + ") {"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        method.addBodyLine("sb.append(\", ...\");"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+        method.addBodyLine("sb.append(']');"); //$NON-NLS-1$
+        method.addBodyLine("}"); //$NON-NLS-1$
+    }
+
+    private void addMethodComment(Method method, IntrospectedTable introspectedTable, TopLevelClass topLevelClass) {
+        if (introspectedTable.getTargetRuntime() == IntrospectedTable.TargetRuntime.MYBATIS3_DSQL) {
+            context.getCommentGenerator().addGeneralMethodAnnotation(method,
+                    introspectedTable, topLevelClass.getImportedTypes());
+        } else {
+            context.getCommentGenerator().addGeneralMethodComment(method,
+                    introspectedTable);
+        }
+    }
+
+    private static boolean isGeneratedModelClass(FullyQualifiedJavaType type, IntrospectedTable introspectedTable) {
+        String name = type.getFullyQualifiedName();
+        return name.equals(introspectedTable.getPrimaryKeyType())
+                || name.equals(introspectedTable.getBaseRecordType());
+    }
+
+    /**
+     * Estimates the number of characters needed to render the value of a field, used to presize the StringBuilder.
+     * @param field
+     * @param introspectedColumn the column of the field, null if the field is not mapped to a column
+     * @return
+     */
+    private int estimateValueLength(Field field, IntrospectedColumn introspectedColumn) {
+        if (introspectedColumn != null && introspectedColumn.isStringColumn()) {
+            int length = Math.min(introspectedColumn.getLength(), 64);
+            if (maxColumnLength > 0) {
+                length = Math.min(length, maxColumnLength + 3);
+            }
+            return Math.max(4, length);
+        }
+        if (field.getType().isArray()) {
+            return 16;
+        }
+        switch (field.getType().getFullyQualifiedName()) {
+            case "boolean": //$NON-NLS-1$
+            case "java.lang.Boolean": //$NON-NLS-1$
+                return 5;
+            case "byte": //$NON-NLS-1$
+            case "short": //$NON-NLS-1$
+            case "int": //$NON-NLS-1$
+            case "java.lang.Byte": //$NON-NLS-1$
+            case "java.lang.Short": //$NON-NLS-1$
+            case "java.lang.Integer": //$NON-NLS-1$
+                return 6;
+            case "java.util.Date": //$NON-NLS-1$
+                return 28;
+            default:
+                return 12;
+        }
     }
 }
@@ -0,0 +1,346 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.GeneratedXmlFile;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.MyBatisGenerator;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+import org.mybatis.generator.api.dom.java.Interface;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Element;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.config.JavaClientGeneratorConfiguration;
+import org.mybatis.generator.internal.ObjectFactory;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import static org.mybatis.generator.internal.util.StringUtility.isTrue;
+
+/**
+ * Skip the generation of the files of the tables which did not change since the previous run.
+ * <p>
+ * Each table is fingerprinted from its columns (names, types, lengths, nullability...), its primary key, its table
+ * configuration and the part of the context configuration shared by all the tables: plugins with their properties,
+ * comment generator, type resolver and code generators. The version of the generator and of each configured plugin
+ * are part of it too: the implementation version of their jar, or the location and modification time of their jar or
+ * class file when they have none. The other tables and the database connection are not part of the fingerprint. The
+ * fingerprints are stored in an index file, set by the <code>indexFile</code> property
+ * (<code>target/mybatis-generator.index</code> by default). When the fingerprint of a table matches the index, its
+ * model classes, client and sql map are not generated again, unless the file to generate is missing. The <code>force</code> property regenerates all the tables and rebuilds the index.
+ * <p>
+ * The entry of a table is added to the index once all its files have been generated, and the index is written when
+ * all the tables of the context have been generated. The generator writes the files afterwards: if they cannot be
+ * written, the next run must be forced.
+ * <p>
+ * This plugin should be declared first, so that the class level work of the other plugins is skipped as well. The
+ * files generated once per context by the other plugins, such as the string pool of {@link StringInternPlugin} or the
+ * codec of {@link BinaryCodecPlugin}, are still generated when all the tables are skipped, as long as these plugins
+ * decide to generate them when the tables are initialized rather than from the classes they generate. The classes of
+ * the plugins wrapped by {@link InstrumentationPlugin} are not part of the fingerprint.
+ *
+ * @author Alexandre Hausherr
+ * @version 1
+ */
+public class IncrementalGenerationPlugin extends PluginAdapter {
+
+    private static final String DEFAULT_INDEX_FILE = "target/mybatis-generator.index";
+
+    /**
+     * Elements of the context configuration which do not change the generated code of a table.
+     */
+    private static final Set<String> IGNORED_CONTEXT_ELEMENTS = new HashSet<>(Arrays.asList("table", "jdbcConnection", "connectionFactory"));
+
+    private String indexFile;
+
+    private boolean force;
+
+    private Properties index;
+
+    private String contextFingerprint;
+
+    private final Set<IntrospectedTable> unchangedTables = new HashSet<>();
+
+    /**
+     * Fingerprints of the tables being generated, added to the index once their files have been generated.
+     */
+    private final Map<IntrospectedTable, String> fingerprints = new HashMap<>();
+
+
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        indexFile = properties.getProperty("indexFile", DEFAULT_INDEX_FILE);
+        force = isTrue(properties.getProperty("force"));
+    }
+
+    /**
+     * Warn when another plugin is declared before this one, as its class level work is not skipped.
+     * @param warnings
+     * @return
+     */
+    @Override
+    public boolean validate(List<String> warnings) {
+        List<String> pluginTypes = getPluginTypes();
+        int position = pluginTypes.indexOf(getClass().getName());
+        if(position > 0) {
+            warnings.add("IncrementalGenerationPlugin: should be declared before " + pluginTypes.get(0) //$NON-NLS-1$
+                    + " in context " + context.getId() + ", the plugins declared before it still process the unchanged tables"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return true;
+    }
+
+
+    /**
+     * Fingerprint the table, and compare it to the one of the previous run.
+     * @param introspectedTable
+     */
+    @Override
+    public void initialized(IntrospectedTable introspectedTable) {
+        String fingerprint = fingerprint(introspectedTable);
+        if(!force && fingerprint.equals(getIndex().getProperty(getIndexKey(introspectedTable)))) {
+            unchangedTables.add(introspectedTable);
+        }
+        fingerprints.put(introspectedTable, fingerprint);
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return isGenerated(topLevelClass.getType(), context.getJavaModelGeneratorConfiguration().getTargetProject(), introspectedTable);
+    }
+
+    @Override
+    public boolean modelPrimaryKeyClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return isGenerated(topLevelClass.getType(), context.getJavaModelGeneratorConfiguration().getTargetProject(), introspectedTable);
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return isGenerated(topLevelClass.getType(), context.getJavaModelGeneratorConfiguration().getTargetProject(), introspectedTable);
+    }
+
+    @Override
+    public boolean modelExampleClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return isGenerated(topLevelClass.getType(), context.getJavaModelGeneratorConfiguration().getTargetProject(), introspectedTable);
+    }
+
+    @Override
+    public boolean clientGenerated(Interface interfaze, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        JavaClientGeneratorConfiguration configuration = context.getJavaClientGeneratorConfiguration();
+        return configuration == null || isGenerated(interfaze.getType(), configuration.getTargetProject(), introspectedTable);
+    }
+
+    @Override
+    public boolean providerGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        JavaClientGeneratorConfiguration configuration = context.getJavaClientGeneratorConfiguration();
+        return configuration == null || isGenerated(topLevelClass.getType(), configuration.getTargetProject(), introspectedTable);
+    }
+
+    @Override
+    public boolean sqlMapGenerated(GeneratedXmlFile sqlMap, IntrospectedTable introspectedTable) {
+        return !unchangedTables.contains(introspectedTable)
+                || !getTargetFile(sqlMap.getTargetProject(), sqlMap.getTargetPackage(), sqlMap.getFileName()).isFile();
+    }
+
+
+    /**
+     * Called once all the files of the table have been generated: add its fingerprint to the index.
+     * @param introspectedTable
+     * @return
+     */
+    @Override
+    public List<GeneratedXmlFile> contextGenerateAdditionalXmlFiles(IntrospectedTable introspectedTable) {
+        String fingerprint = fingerprints.remove(introspectedTable);
+        if(fingerprint != null) {
+            getIndex().setProperty(getIndexKey(introspectedTable), fingerprint);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Called once all the tables of the context have been generated: store the fingerprints for the next run.
+     * @return
+     */
+    @Override
+    public List<GeneratedXmlFile> contextGenerateAdditionalXmlFiles() {
+        File file = new File(indexFile);
+        if(file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try(OutputStream out = new FileOutputStream(file)) {
+            getIndex().store(out, "mybatis-generator-plugins table fingerprints");
+        } catch(IOException e) {
+            throw new UncheckedIOException("Cannot write the generation index " + indexFile, e);
+        }
+        return Collections.emptyList();
+    }
+
+
+    private boolean isGenerated(FullyQualifiedJavaType type, String targetProject, IntrospectedTable introspectedTable) {
+        return !unchangedTables.contains(introspectedTable)
+                || !getTargetFile(targetProject, type.getPackageName(), type.getShortNameWithoutTypeArguments() + ".java").isFile();
+    }
+
+    private static File getTargetFile(String targetProject, String targetPackage, String fileName) {
+        return new File(new File(targetProject, targetPackage.replace('.', File.separatorChar)), fileName);
+    }
+
+
+    /**
+     * Loads the index of the previous run on first use. The index is shared by all the contexts of the configuration,
+     * the entries of each table being prefixed by the context id.
+     * @return
+     */
+    private Properties getIndex() {
+        if(index == null) {
+            index = new Properties();
+            File file = new File(indexFile);
+            if(file.isFile()) {
+                try(InputStream in = new FileInputStream(file)) {
+                    index.load(in);
+                } catch(IOException e) {
+                    throw new UncheckedIOException("Cannot read the generation index " + indexFile, e);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the types of the plugins of the context, in their declaration order.
+     * @return
+     */
+    private List<String> getPluginTypes() {
+        List<String> pluginTypes = new ArrayList<>();
+        for(Element child : context.toXmlElement().getElements()) {
+            if(child instanceof XmlElement && "plugin".equals(((XmlElement) child).getName())) { //$NON-NLS-1$
+                for(Attribute attribute : ((XmlElement) child).getAttributes()) {
+                    if("type".equals(attribute.getName())) { //$NON-NLS-1$
+                        pluginTypes.add(attribute.getValue());
+                    }
+                }
+            }
+        }
+        return pluginTypes;
+    }
+
+    private String getIndexKey(IntrospectedTable introspectedTable) {
+        return context.getId() + "/" + introspectedTable.getFullyQualifiedTable();
+    }
+
+    private String fingerprint(IntrospectedTable introspectedTable) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getContextFingerprint()).append('\n');
+        sb.append(introspectedTable.getTableConfiguration().toXmlElement().getFormattedContent(0)).append('\n');
+        sb.append(introspectedTable.getFullyQualifiedTable()).append('\n');
+        sb.append(introspectedTable.getTargetRuntime()).append('\n');
+        for(IntrospectedColumn column : introspectedTable.getAllColumns()) {
+            sb.append(column.getActualColumnName()).append('|')
+                    .append(column.getJdbcType()).append('|')
+                    .append(column.getJdbcTypeName()).append('|')
+                    .append(column.getFullyQualifiedJavaType()).append('|')
+                    .append(column.getJavaProperty()).append('|')
+                    .append(column.getLength()).append('|')
+                    .append(column.getScale()).append('|')
+                    .append(column.isNullable()).append('|')
+                    .append(column.isIdentity()).append('|')
+                    .append(column.isAutoIncrement()).append('|')
+                    .append(column.isGeneratedAlways()).append('|')
+                    .append(column.isSequenceColumn()).append('|')
+                    .append(column.getTypeHandler()).append('|')
+                    .append(column.getDefaultValue()).append('|')
+                    .append(column.getRemarks()).append('|')
+                    .append(column.getProperties()).append('\n');
+        }
+        for(IntrospectedColumn column : introspectedTable.getPrimaryKeyColumns()) {
+            sb.append("pk|").append(column.getActualColumnName()).append('\n');
+        }
+        return sha256(sb.toString());
+    }
+
+    /**
+     * Fingerprint the configuration of the context, without its tables and its connection. It is computed once, as
+     * the configuration does not change during the generation.
+     * @return
+     */
+    private String getContextFingerprint() {
+        if(contextFingerprint == null) {
+            XmlElement element = context.toXmlElement();
+            StringBuilder sb = new StringBuilder();
+            for(Attribute attribute : element.getAttributes()) {
+                sb.append(attribute.getName()).append('=').append(attribute.getValue()).append('\n');
+            }
+            for(Element child : element.getElements()) {
+                if(!(child instanceof XmlElement) || !IGNORED_CONTEXT_ELEMENTS.contains(((XmlElement) child).getName())) {
+                    sb.append(child.getFormattedContent(0)).append('\n');
+                }
+            }
+            sb.append(getVersion(MyBatisGenerator.class)).append('\n');
+            for(String pluginType : getPluginTypes()) {
+                sb.append(pluginType).append('|').append(getPluginVersion(pluginType)).append('\n');
+            }
+            contextFingerprint = sha256(sb.toString());
+        }
+        return contextFingerprint;
+    }
+
+    private static String getPluginVersion(String pluginType) {
+        try {
+            return getVersion(ObjectFactory.externalClassForName(pluginType));
+        } catch(ClassNotFoundException e) {
+            // the plugin could not have been created
+            return "";
+        }
+    }
+
+    /**
+     * Returns the implementation version of the jar of a class or, when it has none, the location and the modification
+     * time of its jar or class file, so that a rebuilt plugin changes the fingerprint.
+     * @param type
+     * @return
+     */
+    private static String getVersion(Class<?> type) {
+        Package typePackage = type.getPackage();
+        if(typePackage != null && typePackage.getImplementationVersion() != null) {
+            return typePackage.getImplementationVersion();
+        }
+        URL location = type.getResource(type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class");
+        if(location == null) {
+            return "";
+        }
+        try {
+            URLConnection connection = location.openConnection();
+            if(connection instanceof JarURLConnection) {
+                location = ((JarURLConnection) connection).getJarFileURL();
+            }
+            if(!"file".equals(location.getProtocol())) { //$NON-NLS-1$
+                return location.toString();
+            }
+            return location + "@" + new File(location.toURI()).lastModified();
+        } catch(IOException | URISyntaxException e) {
+            return location.toString();
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for(byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch(NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
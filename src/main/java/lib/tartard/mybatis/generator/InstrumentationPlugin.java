@@ -0,0 +1,827 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.GeneratedXmlFile;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.Plugin;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.Element;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.config.PluginConfiguration;
+import org.mybatis.generator.internal.ObjectFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * Measure the cost of other plugins at generation time.
+ * <p>
+ * The plugins to measure are listed, comma separated, in the <code>plugins</code> property, and are called in that
+ * order, as if they had been declared in the context. Their properties are set on this plugin, prefixed by the simple
+ * name of their class, for example <code>JsonAnnotationsPlugin.compact</code>.
+ * <p>
+ * For each plugin, table and hook, the number of calls and the wall time spent are recorded, as well as the number of
+ * methods, fields, annotations and imports the plugin added to the generated classes, and the number of XML elements
+ * and attributes it added to the sql maps. These counts are the difference between the generated code before and after
+ * the call. The class level hooks count the whole class, while the field and method hooks only count the element they
+ * receive and the imports of its class, so that the measure does not grow with the size of the class: the members a
+ * plugin adds to the class from these hooks are not counted. The results are
+ * written as CSV to the file set by the <code>reportFile</code> property
+ * (<code>target/mybatis-generator-&lt;context id&gt;.csv</code> by default) once all the tables of the context have
+ * been generated.
+ * <p>
+ * All the hooks of MyBatis Generator are forwarded. The <code>sqlMapGenerated</code> hook only gives access to the
+ * formatted sql map, so nothing is counted for it.
+ *
+ * @author Alexandre Hausherr
+ * @version 1
+ */
+public class InstrumentationPlugin extends PluginAdapter {
+
+    private static final String REPORT_HEADER = "context,plugin,table,hook,calls,nanos,methods,fields,annotations,imports,elements,attributes";
+
+    private static final String CONTEXT_TABLE = "*";
+
+    private final List<Plugin> plugins = new ArrayList<>();
+
+    private final Map<String, Measure> measures = new LinkedHashMap<>();
+
+    private String reportFile;
+
+
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        reportFile = properties.getProperty("reportFile");
+        String pluginTypes = properties.getProperty("plugins");
+        if(stringHasValue(pluginTypes)) {
+            for(String pluginType : pluginTypes.split(",")) {
+                plugins.add(createPlugin(pluginType.trim(), properties));
+            }
+        }
+    }
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        if(plugins.isEmpty()) {
+            warnings.add("InstrumentationPlugin: no plugin set in the plugins property");
+            return false;
+        }
+        boolean valid = true;
+        for(Plugin plugin : plugins) {
+            valid &= plugin.validate(warnings);
+        }
+        return valid;
+    }
+
+    /**
+     * Create a plugin the way MyBatis Generator does, with the properties prefixed by its simple class name.
+     * @param pluginType
+     * @param properties
+     * @return
+     */
+    private Plugin createPlugin(String pluginType, Properties properties) {
+        String prefix = pluginType.substring(pluginType.lastIndexOf('.') + 1) + ".";
+        PluginConfiguration configuration = new PluginConfiguration();
+        configuration.setConfigurationType(pluginType);
+        for(String name : properties.stringPropertyNames()) {
+            if(name.startsWith(prefix)) {
+                configuration.addProperty(name.substring(prefix.length()), properties.getProperty(name));
+            }
+        }
+        return ObjectFactory.createPlugin(context, configuration);
+    }
+
+
+    @Override
+    public void initialized(IntrospectedTable introspectedTable) {
+        for(Plugin plugin : plugins) {
+            long start = System.nanoTime();
+            plugin.initialized(introspectedTable);
+            getMeasure(plugin, introspectedTable, "initialized").add(System.nanoTime() - start, Count.NONE, Count.NONE);
+        }
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "modelBaseRecordClassGenerated", () -> Count.of(topLevelClass),
+                plugin -> plugin.modelBaseRecordClassGenerated(topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean modelPrimaryKeyClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "modelPrimaryKeyClassGenerated", () -> Count.of(topLevelClass),
+                plugin -> plugin.modelPrimaryKeyClassGenerated(topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "modelRecordWithBLOBsClassGenerated", () -> Count.of(topLevelClass),
+                plugin -> plugin.modelRecordWithBLOBsClassGenerated(topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean modelExampleClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "modelExampleClassGenerated", () -> Count.of(topLevelClass),
+                plugin -> plugin.modelExampleClassGenerated(topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean modelFieldGenerated(Field field, TopLevelClass topLevelClass, IntrospectedColumn introspectedColumn,
+                                       IntrospectedTable introspectedTable, ModelClassType modelClassType) {
+        return measure(introspectedTable, "modelFieldGenerated", () -> Count.of(field).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.modelFieldGenerated(field, topLevelClass, introspectedColumn, introspectedTable, modelClassType));
+    }
+
+    @Override
+    public boolean modelGetterMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedColumn introspectedColumn,
+                                              IntrospectedTable introspectedTable, ModelClassType modelClassType) {
+        return measure(introspectedTable, "modelGetterMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.modelGetterMethodGenerated(method, topLevelClass, introspectedColumn, introspectedTable, modelClassType));
+    }
+
+    @Override
+    public boolean modelSetterMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedColumn introspectedColumn,
+                                              IntrospectedTable introspectedTable, ModelClassType modelClassType) {
+        return measure(introspectedTable, "modelSetterMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.modelSetterMethodGenerated(method, topLevelClass, introspectedColumn, introspectedTable, modelClassType));
+    }
+
+    @Override
+    public boolean clientGenerated(Interface interfaze, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientGenerated", () -> Count.of(interfaze),
+                plugin -> plugin.clientGenerated(interfaze, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerGenerated", () -> Count.of(topLevelClass),
+                plugin -> plugin.providerGenerated(topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapDocumentGenerated", () -> Count.of(document.getRootElement()),
+                plugin -> plugin.sqlMapDocumentGenerated(document, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapGenerated(GeneratedXmlFile sqlMap, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapGenerated", () -> Count.NONE,
+                plugin -> plugin.sqlMapGenerated(sqlMap, introspectedTable));
+    }
+
+    @Override
+    public boolean clientBasicCountMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientBasicCountMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientBasicCountMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientBasicDeleteMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientBasicDeleteMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientBasicDeleteMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientBasicInsertMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientBasicInsertMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientBasicInsertMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientBasicSelectManyMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientBasicSelectManyMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientBasicSelectManyMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientBasicSelectOneMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientBasicSelectOneMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientBasicSelectOneMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientBasicUpdateMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientBasicUpdateMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientBasicUpdateMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientCountByExampleMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientCountByExampleMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientCountByExampleMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientCountByExampleMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientCountByExampleMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientCountByExampleMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientDeleteByExampleMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientDeleteByExampleMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientDeleteByExampleMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientDeleteByExampleMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientDeleteByExampleMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientDeleteByExampleMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientDeleteByPrimaryKeyMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientDeleteByPrimaryKeyMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientDeleteByPrimaryKeyMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientDeleteByPrimaryKeyMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientDeleteByPrimaryKeyMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientDeleteByPrimaryKeyMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientInsertMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientInsertMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientInsertMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientInsertMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientInsertMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientInsertMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientInsertSelectiveMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientInsertSelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientInsertSelectiveMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientInsertSelectiveMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientInsertSelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientInsertSelectiveMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientSelectByExampleWithBLOBsMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientSelectByExampleWithBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientSelectByExampleWithBLOBsMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientSelectByExampleWithBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientSelectByExampleWithBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientSelectByExampleWithBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientSelectByExampleWithoutBLOBsMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientSelectByExampleWithoutBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientSelectByExampleWithoutBLOBsMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientSelectByExampleWithoutBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientSelectByExampleWithoutBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientSelectByExampleWithoutBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientSelectByPrimaryKeyMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientSelectByPrimaryKeyMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientSelectByPrimaryKeyMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientSelectByPrimaryKeyMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientSelectByPrimaryKeyMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientSelectByPrimaryKeyMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByExampleSelectiveMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByExampleSelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientUpdateByExampleSelectiveMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByExampleSelectiveMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByExampleSelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientUpdateByExampleSelectiveMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByExampleWithBLOBsMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByExampleWithBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientUpdateByExampleWithBLOBsMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByExampleWithBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByExampleWithBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientUpdateByExampleWithBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByExampleWithoutBLOBsMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByExampleWithoutBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientUpdateByExampleWithoutBLOBsMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByExampleWithoutBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByExampleWithoutBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientUpdateByExampleWithoutBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByPrimaryKeySelectiveMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByPrimaryKeySelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientUpdateByPrimaryKeySelectiveMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByPrimaryKeySelectiveMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByPrimaryKeySelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientUpdateByPrimaryKeySelectiveMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByPrimaryKeyWithBLOBsMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByPrimaryKeyWithBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientUpdateByPrimaryKeyWithBLOBsMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByPrimaryKeyWithBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByPrimaryKeyWithBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientUpdateByPrimaryKeyWithBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByPrimaryKeyWithoutBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByPrimaryKeyWithoutBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientUpdateByPrimaryKeyWithoutBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean clientUpdateByPrimaryKeyWithoutBLOBsMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientUpdateByPrimaryKeyWithoutBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientUpdateByPrimaryKeyWithoutBLOBsMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientSelectAllMethodGenerated(Method method, Interface interfaze, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientSelectAllMethodGenerated", () -> Count.of(method).plus(Count.ofImports(interfaze)),
+                plugin -> plugin.clientSelectAllMethodGenerated(method, interfaze, introspectedTable));
+    }
+
+    @Override
+    public boolean clientSelectAllMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "clientSelectAllMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.clientSelectAllMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapResultMapWithoutBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapResultMapWithoutBLOBsElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapResultMapWithoutBLOBsElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapCountByExampleElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapCountByExampleElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapCountByExampleElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapDeleteByExampleElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapDeleteByExampleElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapDeleteByExampleElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapDeleteByPrimaryKeyElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapDeleteByPrimaryKeyElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapDeleteByPrimaryKeyElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapExampleWhereClauseElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapExampleWhereClauseElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapExampleWhereClauseElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapBaseColumnListElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapBaseColumnListElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapBaseColumnListElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapBlobColumnListElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapBlobColumnListElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapBlobColumnListElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapInsertElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapInsertElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapInsertElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapInsertSelectiveElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapInsertSelectiveElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapInsertSelectiveElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapResultMapWithBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapResultMapWithBLOBsElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapResultMapWithBLOBsElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapSelectAllElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapSelectAllElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapSelectAllElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapSelectByPrimaryKeyElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapSelectByPrimaryKeyElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapSelectByPrimaryKeyElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapSelectByExampleWithoutBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapSelectByExampleWithoutBLOBsElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapSelectByExampleWithoutBLOBsElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapSelectByExampleWithBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapSelectByExampleWithBLOBsElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapSelectByExampleWithBLOBsElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapUpdateByExampleSelectiveElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapUpdateByExampleSelectiveElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapUpdateByExampleSelectiveElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapUpdateByExampleWithBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapUpdateByExampleWithBLOBsElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapUpdateByExampleWithBLOBsElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapUpdateByExampleWithoutBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapUpdateByExampleWithoutBLOBsElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapUpdateByExampleWithoutBLOBsElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapUpdateByPrimaryKeySelectiveElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapUpdateByPrimaryKeySelectiveElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapUpdateByPrimaryKeySelectiveElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapUpdateByPrimaryKeyWithBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapUpdateByPrimaryKeyWithBLOBsElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapUpdateByPrimaryKeyWithBLOBsElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean sqlMapUpdateByPrimaryKeyWithoutBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "sqlMapUpdateByPrimaryKeyWithoutBLOBsElementGenerated", () -> Count.of(element),
+                plugin -> plugin.sqlMapUpdateByPrimaryKeyWithoutBLOBsElementGenerated(element, introspectedTable));
+    }
+
+    @Override
+    public boolean providerApplyWhereMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerApplyWhereMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerApplyWhereMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerCountByExampleMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerCountByExampleMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerCountByExampleMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerDeleteByExampleMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerDeleteByExampleMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerDeleteByExampleMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerInsertSelectiveMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerInsertSelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerInsertSelectiveMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerSelectByExampleWithBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerSelectByExampleWithBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerSelectByExampleWithBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerSelectByExampleWithoutBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerSelectByExampleWithoutBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerSelectByExampleWithoutBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerUpdateByExampleSelectiveMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerUpdateByExampleSelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerUpdateByExampleSelectiveMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerUpdateByExampleWithBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerUpdateByExampleWithBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerUpdateByExampleWithBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerUpdateByExampleWithoutBLOBsMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerUpdateByExampleWithoutBLOBsMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerUpdateByExampleWithoutBLOBsMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public boolean providerUpdateByPrimaryKeySelectiveMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        return measure(introspectedTable, "providerUpdateByPrimaryKeySelectiveMethodGenerated", () -> Count.of(method).plus(Count.ofImports(topLevelClass)),
+                plugin -> plugin.providerUpdateByPrimaryKeySelectiveMethodGenerated(method, topLevelClass, introspectedTable));
+    }
+
+    @Override
+    public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles(IntrospectedTable introspectedTable) {
+        List<GeneratedJavaFile> files = new ArrayList<>();
+        for(Plugin plugin : plugins) {
+            long start = System.nanoTime();
+            List<GeneratedJavaFile> pluginFiles = plugin.contextGenerateAdditionalJavaFiles(introspectedTable);
+            long nanos = System.nanoTime() - start;
+            Count after = Count.NONE;
+            if(pluginFiles != null) {
+                files.addAll(pluginFiles);
+                for(GeneratedJavaFile file : pluginFiles) {
+                    after = after.plus(Count.of(file.getCompilationUnit()));
+                }
+            }
+            getMeasure(plugin, introspectedTable, "contextGenerateAdditionalJavaFiles").add(nanos, Count.NONE, after);
+        }
+        return files;
+    }
+
+    @Override
+    public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles() {
+        List<GeneratedJavaFile> files = new ArrayList<>();
+        for(Plugin plugin : plugins) {
+            long start = System.nanoTime();
+            List<GeneratedJavaFile> pluginFiles = plugin.contextGenerateAdditionalJavaFiles();
+            long nanos = System.nanoTime() - start;
+            Count after = Count.NONE;
+            if(pluginFiles != null) {
+                files.addAll(pluginFiles);
+                for(GeneratedJavaFile file : pluginFiles) {
+                    after = after.plus(Count.of(file.getCompilationUnit()));
+                }
+            }
+            getMeasure(plugin, null, "contextGenerateAdditionalJavaFiles").add(nanos, Count.NONE, after);
+        }
+        return files;
+    }
+
+    @Override
+    public List<GeneratedXmlFile> contextGenerateAdditionalXmlFiles(IntrospectedTable introspectedTable) {
+        List<GeneratedXmlFile> files = new ArrayList<>();
+        for(Plugin plugin : plugins) {
+            long start = System.nanoTime();
+            List<GeneratedXmlFile> pluginFiles = plugin.contextGenerateAdditionalXmlFiles(introspectedTable);
+            getMeasure(plugin, introspectedTable, "contextGenerateAdditionalXmlFiles").add(System.nanoTime() - start, Count.NONE, Count.NONE);
+            if(pluginFiles != null) {
+                files.addAll(pluginFiles);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Called last for the context: forward the hook, then write the report.
+     * @return
+     */
+    @Override
+    public List<GeneratedXmlFile> contextGenerateAdditionalXmlFiles() {
+        List<GeneratedXmlFile> files = new ArrayList<>();
+        for(Plugin plugin : plugins) {
+            long start = System.nanoTime();
+            List<GeneratedXmlFile> pluginFiles = plugin.contextGenerateAdditionalXmlFiles();
+            getMeasure(plugin, null, "contextGenerateAdditionalXmlFiles").add(System.nanoTime() - start, Count.NONE, Count.NONE);
+            if(pluginFiles != null) {
+                files.addAll(pluginFiles);
+            }
+        }
+        writeReport();
+        return files;
+    }
+
+
+    /**
+     * Call a hook on each plugin, stopping at the first one returning false as MyBatis Generator does.
+     * @param introspectedTable
+     * @param hook name of the hook in the report
+     * @param counter counts the elements of the generated code the plugins may add to
+     * @param call
+     * @return
+     */
+    private boolean measure(IntrospectedTable introspectedTable, String hook, Counter counter, Hook call) {
+        for(Plugin plugin : plugins) {
+            Count before = counter.count();
+            long start = System.nanoTime();
+            boolean generated = call.call(plugin);
+            long nanos = System.nanoTime() - start;
+            getMeasure(plugin, introspectedTable, hook).add(nanos, before, counter.count());
+            if(!generated) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Measure getMeasure(Plugin plugin, IntrospectedTable introspectedTable, String hook) {
+        String table = introspectedTable == null ? CONTEXT_TABLE : introspectedTable.getFullyQualifiedTable().toString();
+        String key = csv(context.getId()) + ',' + csv(plugin.getClass().getName()) + ',' + csv(table) + ',' + csv(hook);
+        return measures.computeIfAbsent(key, k -> new Measure());
+    }
+
+    private void writeReport() {
+        String fileName = stringHasValue(reportFile) ? reportFile : "target/mybatis-generator-" + context.getId() + ".csv";
+        File file = new File(fileName);
+        if(file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        try(Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write(REPORT_HEADER);
+            writer.write('\n');
+            for(Map.Entry<String, Measure> entry : measures.entrySet()) {
+                Measure measure = entry.getValue();
+                writer.write(entry.getKey() + ',' + measure.calls + ',' + measure.nanos + ',' + measure.added.methods + ','
+                        + measure.added.fields + ',' + measure.added.annotations + ',' + measure.added.imports + ','
+                        + measure.added.elements + ',' + measure.added.attributes + '\n');
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException("Cannot write the instrumentation report " + fileName, e);
+        }
+    }
+
+    private static String csv(String value) {
+        if(value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+
+    private interface Hook {
+        boolean call(Plugin plugin);
+    }
+
+    private interface Counter {
+        Count count();
+    }
+
+    /**
+     * Accumulated measures of a plugin hook on a table.
+     */
+    private static class Measure {
+        private long calls;
+        private long nanos;
+        private Count added = Count.NONE;
+
+        private void add(long nanos, Count before, Count after) {
+            this.calls++;
+            this.nanos += nanos;
+            this.added = added.plus(after.minus(before));
+        }
+    }
+
+    /**
+     * Number of elements of generated code.
+     */
+    private static class Count {
+
+        private static final Count NONE = new Count(0, 0, 0, 0, 0, 0);
+
+        private final int methods;
+        private final int fields;
+        private final int annotations;
+        private final int imports;
+        private final int elements;
+        private final int attributes;
+
+        private Count(int methods, int fields, int annotations, int imports, int elements, int attributes) {
+            this.methods = methods;
+            this.fields = fields;
+            this.annotations = annotations;
+            this.imports = imports;
+            this.elements = elements;
+            this.attributes = attributes;
+        }
+
+        private Count plus(Count other) {
+            return new Count(methods + other.methods, fields + other.fields, annotations + other.annotations,
+                    imports + other.imports, elements + other.elements, attributes + other.attributes);
+        }
+
+        private Count minus(Count other) {
+            return new Count(methods - other.methods, fields - other.fields, annotations - other.annotations,
+                    imports - other.imports, elements - other.elements, attributes - other.attributes);
+        }
+
+        private static Count of(CompilationUnit compilationUnit) {
+            Count count = ofImports(compilationUnit);
+            if(compilationUnit instanceof InnerClass) {
+                count = count.plus(ofClass((InnerClass) compilationUnit));
+            } else if(compilationUnit instanceof Interface) {
+                count = count.plus(ofInterface((Interface) compilationUnit));
+            }
+            return count;
+        }
+
+        private static Count ofImports(CompilationUnit compilationUnit) {
+            return new Count(0, 0, 0, compilationUnit.getImportedTypes().size() + compilationUnit.getStaticImports().size(), 0, 0);
+        }
+
+        /**
+         * Count the members of a class, including those of its nested classes.
+         * @param innerClass
+         * @return
+         */
+        private static Count ofClass(InnerClass innerClass) {
+            Count count = new Count(0, 0, innerClass.getAnnotations().size(), 0, 0, 0);
+            for(Method method : innerClass.getMethods()) {
+                count = count.plus(of(method));
+            }
+            for(Field field : innerClass.getFields()) {
+                count = count.plus(of(field));
+            }
+            for(InnerClass nested : innerClass.getInnerClasses()) {
+                count = count.plus(ofClass(nested));
+            }
+            return count;
+        }
+
+        private static Count ofInterface(Interface interfaze) {
+            Count count = new Count(0, 0, interfaze.getAnnotations().size(), 0, 0, 0);
+            for(Method method : interfaze.getMethods()) {
+                count = count.plus(of(method));
+            }
+            for(Field field : interfaze.getFields()) {
+                count = count.plus(of(field));
+            }
+            return count;
+        }
+
+        private static Count of(Method method) {
+            return new Count(1, 0, method.getAnnotations().size(), 0, 0, 0);
+        }
+
+        private static Count of(Field field) {
+            return new Count(0, 1, field.getAnnotations().size(), 0, 0, 0);
+        }
+
+        /**
+         * Count an XML element, its attributes and its nested elements.
+         * @param element
+         * @return
+         */
+        private static Count of(XmlElement element) {
+            Count count = new Count(0, 0, 0, 0, 1, element.getAttributes().size());
+            for(Element child : element.getElements()) {
+                if(child instanceof XmlElement) {
+                    count = count.plus(of((XmlElement) child));
+                }
+            }
+            return count;
+        }
+    }
+}
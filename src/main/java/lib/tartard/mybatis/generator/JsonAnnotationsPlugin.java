@@ -6,11 +6,34 @@ import org.mybatis.generator.api.Plugin;
 import org.mybatis.generator.api.PluginAdapter;
 import org.mybatis.generator.api.dom.java.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
+
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getGetterMethodName;
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getSetterMethodName;
+import static org.mybatis.generator.internal.util.StringUtility.isTrue;
 
 /**
  * Add Jackson annotation to getters, and eventually to the constructor and the setters.
+ * <p>
+ * When the <code>generateStreamingSerializers</code> property is set, a <code>JsonStreamingSerializer</code> and a
+ * <code>JsonStreamingDeserializer</code> nested class are generated in each model class and registered with
+ * <code>@JsonSerialize</code> and <code>@JsonDeserialize</code>. They read and write the columns directly with the
+ * Jackson streaming API, using pre-encoded field names built from the <code>FIELD_*</code> constants, so that Jackson
+ * does not introspect the bean at runtime.
+ * <p>
+ * When the <code>compact</code> property is set, the payloads are made smaller:
+ * <ul>
+ *     <li>the properties are ordered as the columns with <code>@JsonPropertyOrder</code></li>
+ *     <li>null values of nullable columns are omitted (<code>@JsonInclude(NON_NULL)</code>), as well as default values
+ *     of non-nullable primitive columns (<code>@JsonInclude(NON_DEFAULT)</code>)</li>
+ * </ul>
+ * When the <code>arrayShape</code> property is set, the models are written as JSON arrays of their values in column
+ * order (<code>@JsonFormat(shape = ARRAY)</code>), which should only be used between services sharing the models.
+ * The streaming serializers follow both properties.
  * 
  * @author Alexandre Hausherr
  * @version 1
@@ -18,11 +41,69 @@ import java.util.Optional;
 public class JsonAnnotationsPlugin extends PluginAdapter {
 
     private static final String FIELD_PREFIX = "FIELD_";
+
+    private static final String SERIALIZED_FIELD_PREFIX = "JSON_FIELD_";
+
+    private static final String SERIALIZER_CLASS = "JsonStreamingSerializer";
+
+    private static final String DESERIALIZER_CLASS = "JsonStreamingDeserializer";
+
+    private static final FullyQualifiedJavaType IO_EXCEPTION = new FullyQualifiedJavaType("java.io.IOException");
+    private static final FullyQualifiedJavaType JSON_GENERATOR = new FullyQualifiedJavaType("com.fasterxml.jackson.core.JsonGenerator");
+    private static final FullyQualifiedJavaType JSON_PARSER = new FullyQualifiedJavaType("com.fasterxml.jackson.core.JsonParser");
+    private static final FullyQualifiedJavaType JSON_TOKEN = new FullyQualifiedJavaType("com.fasterxml.jackson.core.JsonToken");
+    private static final FullyQualifiedJavaType SERIALIZED_STRING = new FullyQualifiedJavaType("com.fasterxml.jackson.core.io.SerializedString");
+    private static final FullyQualifiedJavaType JSON_SERIALIZER = new FullyQualifiedJavaType("com.fasterxml.jackson.databind.JsonSerializer");
+    private static final FullyQualifiedJavaType JSON_DESERIALIZER = new FullyQualifiedJavaType("com.fasterxml.jackson.databind.JsonDeserializer");
+    private static final FullyQualifiedJavaType SERIALIZER_PROVIDER = new FullyQualifiedJavaType("com.fasterxml.jackson.databind.SerializerProvider");
+    private static final FullyQualifiedJavaType DESERIALIZATION_CONTEXT = new FullyQualifiedJavaType("com.fasterxml.jackson.databind.DeserializationContext");
+    private static final FullyQualifiedJavaType JSON_SERIALIZE = new FullyQualifiedJavaType("com.fasterxml.jackson.databind.annotation.JsonSerialize");
+    private static final FullyQualifiedJavaType JSON_DESERIALIZE = new FullyQualifiedJavaType("com.fasterxml.jackson.databind.annotation.JsonDeserialize");
+
+    /**
+     * Jackson parser method reading the current value, by Java type. Types not listed here are read through the
+     * deserialization context.
+     */
+    private static final Map<String, String> PARSER_READ_METHODS = new HashMap<>();
+
+    static {
+        PARSER_READ_METHODS.put("boolean", "getBooleanValue");
+        PARSER_READ_METHODS.put("byte", "getByteValue");
+        PARSER_READ_METHODS.put("short", "getShortValue");
+        PARSER_READ_METHODS.put("int", "getIntValue");
+        PARSER_READ_METHODS.put("long", "getLongValue");
+        PARSER_READ_METHODS.put("float", "getFloatValue");
+        PARSER_READ_METHODS.put("double", "getDoubleValue");
+        PARSER_READ_METHODS.put("java.lang.Boolean", "getBooleanValue");
+        PARSER_READ_METHODS.put("java.lang.Byte", "getByteValue");
+        PARSER_READ_METHODS.put("java.lang.Short", "getShortValue");
+        PARSER_READ_METHODS.put("java.lang.Integer", "getIntValue");
+        PARSER_READ_METHODS.put("java.lang.Long", "getLongValue");
+        PARSER_READ_METHODS.put("java.lang.Float", "getFloatValue");
+        PARSER_READ_METHODS.put("java.lang.Double", "getDoubleValue");
+        PARSER_READ_METHODS.put("java.math.BigDecimal", "getDecimalValue");
+        PARSER_READ_METHODS.put("java.math.BigInteger", "getBigIntegerValue");
+        PARSER_READ_METHODS.put("byte[]", "getBinaryValue");
+    }
+
+    private boolean generateStreamingSerializers;
+
+    private boolean compact;
+
+    private boolean arrayShape;
     
     
     private static String getFieldNameConstantName(String fieldName) {
         return FIELD_PREFIX + fieldName.toUpperCase();
     }
+
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        generateStreamingSerializers = isTrue(properties.getProperty("generateStreamingSerializers"));
+        compact = isTrue(properties.getProperty("compact"));
+        arrayShape = isTrue(properties.getProperty("arrayShape"));
+    }
     
     @Override
     public boolean validate(List<String> list) {
@@ -55,7 +136,8 @@ public class JsonAnnotationsPlugin extends PluginAdapter {
 
 
     /**
-     * Add a @Jsongetter annotation for each getter of the class being generated.
+     * Add a @Jsongetter annotation for each getter of the class being generated, and in compact mode a @JsonInclude
+     * annotation for columns whose null or default values can be omitted.
      * @param method
      * @param topLevelClass
      * @param introspectedColumn
@@ -67,14 +149,19 @@ public class JsonAnnotationsPlugin extends PluginAdapter {
     public boolean modelGetterMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedColumn introspectedColumn, IntrospectedTable introspectedTable, Plugin.ModelClassType modelClassType) {
         topLevelClass.addImportedType("com.fasterxml.jackson.annotation.JsonGetter");
         method.addAnnotation("@JsonGetter(" + getFieldNameConstantName(introspectedColumn.getJavaProperty()) + ")");
-    
+        
+        String inclusion = getInclusion(introspectedColumn);
+        if(inclusion != null) {
+            topLevelClass.addImportedType("com.fasterxml.jackson.annotation.JsonInclude");
+            method.addAnnotation("@JsonInclude(JsonInclude.Include." + inclusion + ")");
+        }
     
         return true;
     }
 
 
     /**
-     * If the class is immutable or its instantiation is constructor based, add a @JsonConstructor annotation on 
+     * If the class is immutable or its instantiation is constructor based, add a @JsonCreator annotation on 
      * its parametrized constructor, with a @JsonProperty for each of the constructor parameters.
      * @param topLevelClass
      * @param introspectedTable
@@ -82,19 +169,357 @@ public class JsonAnnotationsPlugin extends PluginAdapter {
      */
     @Override
     public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
-        if(introspectedTable.isImmutable() || introspectedTable.isConstructorBased()) {
-            Optional<Method> constructorOpt = topLevelClass.getMethods().stream()
-                    .filter(Method::isConstructor).findFirst();
-            if(constructorOpt.isPresent()) {
-                Method constructor = constructorOpt.get();
-                topLevelClass.addImportedType("com.fasterxml.jackson.annotation.JsonCreator");
-                topLevelClass.addImportedType("com.fasterxml.jackson.annotation.JsonProperty");
-                constructor.addAnnotation("@JsonConstructor");
-                constructor.getParameters().forEach(parameter -> parameter.addAnnotation("@JsonProperty(" + getFieldNameConstantName(parameter.getName()) + ")"));
+        addJsonCreator(topLevelClass, introspectedTable);
+        List<IntrospectedColumn> columns = introspectedTable.getRules().generateRecordWithBLOBsClass()
+                ? introspectedTable.getNonBLOBColumns() : introspectedTable.getAllColumns();
+        addClassAnnotations(topLevelClass, columns, introspectedTable);
+        return true;
+    }
+
+
+    @Override
+    public boolean modelPrimaryKeyClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        addJsonCreator(topLevelClass, introspectedTable);
+        addClassAnnotations(topLevelClass, introspectedTable.getPrimaryKeyColumns(), introspectedTable);
+        return true;
+    }
+
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        addJsonCreator(topLevelClass, introspectedTable);
+        addClassAnnotations(topLevelClass, introspectedTable.getAllColumns(), introspectedTable);
+        return true;
+    }
+
+
+    /**
+     * If the class is immutable or its instantiation is constructor based, add a @JsonCreator annotation on 
+     * its parametrized constructor, with a @JsonProperty for each of the constructor parameters.
+     * @param topLevelClass
+     * @param introspectedTable
+     */
+    private static void addJsonCreator(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        Optional<Method> constructorOpt = findArgumentsConstructor(topLevelClass, introspectedTable);
+        if(constructorOpt.isPresent()) {
+            Method constructor = constructorOpt.get();
+            topLevelClass.addImportedType("com.fasterxml.jackson.annotation.JsonCreator");
+            topLevelClass.addImportedType("com.fasterxml.jackson.annotation.JsonProperty");
+            constructor.addAnnotation("@JsonCreator");
+            constructor.getParameters().forEach(parameter -> parameter.addAnnotation("@JsonProperty(" + getFieldNameConstantName(parameter.getName()) + ")"));
+        }
+    }
+
+
+    /**
+     * Add the class level property order and shape annotations, and the streaming serializers.
+     * @param topLevelClass
+     * @param introspectedColumns all the columns of the class, including the ones of its superclasses
+     * @param introspectedTable
+     */
+    private void addClassAnnotations(TopLevelClass topLevelClass, List<IntrospectedColumn> introspectedColumns, IntrospectedTable introspectedTable) {
+        if(compact || arrayShape) {
+            // the class annotations are out of the scope of the class members, the constants must be qualified
+            String className = topLevelClass.getType().getShortName();
+            StringBuilder sb = new StringBuilder("@JsonPropertyOrder({");
+            boolean first = true;
+            for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+                if(!first) {
+                    sb.append(", ");
+                }
+                sb.append(className).append('.').append(getFieldNameConstantName(introspectedColumn.getJavaProperty()));
+                first = false;
             }
-                    
+            topLevelClass.addImportedType("com.fasterxml.jackson.annotation.JsonPropertyOrder");
+            topLevelClass.addAnnotation(sb.append("})").toString());
         }
-        return true;
+        if(arrayShape) {
+            topLevelClass.addImportedType("com.fasterxml.jackson.annotation.JsonFormat");
+            topLevelClass.addAnnotation("@JsonFormat(shape = JsonFormat.Shape.ARRAY)");
+        }
+        if(generateStreamingSerializers) {
+            addStreamingSerializers(topLevelClass, introspectedColumns, introspectedTable);
+        }
+    }
+
+
+    /**
+     * Returns the inclusion of the column value in compact mode: NON_NULL for nullable columns, NON_DEFAULT for
+     * non-nullable primitive columns, null if the value is always included.
+     * @param introspectedColumn
+     * @return
+     */
+    private String getInclusion(IntrospectedColumn introspectedColumn) {
+        if(!compact || arrayShape) {
+            return null;
+        }
+        if(introspectedColumn.getFullyQualifiedJavaType().isPrimitive()) {
+            return introspectedColumn.isNullable() ? null : "NON_DEFAULT";
+        }
+        return introspectedColumn.isNullable() ? "NON_NULL" : null;
+    }
+
+
+    /**
+     * Add the streaming serializer and deserializer nested classes to the model class, and register them with
+     * @JsonSerialize and @JsonDeserialize.
+     * @param topLevelClass
+     * @param introspectedColumns all the columns of the class, including the ones of its superclasses
+     * @param introspectedTable
+     */
+    private void addStreamingSerializers(TopLevelClass topLevelClass, List<IntrospectedColumn> introspectedColumns, IntrospectedTable introspectedTable) {
+        String className = topLevelClass.getType().getShortName();
+        topLevelClass.addImportedType(IO_EXCEPTION);
+        topLevelClass.addImportedType(JSON_GENERATOR);
+        topLevelClass.addImportedType(JSON_PARSER);
+        topLevelClass.addImportedType(JSON_TOKEN);
+        if(!arrayShape) {
+            topLevelClass.addImportedType(SERIALIZED_STRING);
+        }
+        topLevelClass.addImportedType(JSON_SERIALIZER);
+        topLevelClass.addImportedType(JSON_DESERIALIZER);
+        topLevelClass.addImportedType(SERIALIZER_PROVIDER);
+        topLevelClass.addImportedType(DESERIALIZATION_CONTEXT);
+        topLevelClass.addImportedType(JSON_SERIALIZE);
+        topLevelClass.addImportedType(JSON_DESERIALIZE);
+        // the columns of the superclasses are referenced by the nested classes, but not imported by the generator
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            if(!introspectedColumn.getFullyQualifiedJavaType().isPrimitive()) {
+                topLevelClass.addImportedType(introspectedColumn.getFullyQualifiedJavaType());
+            }
+        }
+        topLevelClass.addAnnotation("@JsonSerialize(using = " + className + "." + SERIALIZER_CLASS + ".class)");
+        topLevelClass.addAnnotation("@JsonDeserialize(using = " + className + "." + DESERIALIZER_CLASS + ".class)");
+
+        topLevelClass.addInnerClass(generateSerializer(topLevelClass, introspectedColumns));
+        topLevelClass.addInnerClass(generateDeserializer(topLevelClass, introspectedColumns, introspectedTable));
+    }
+
+
+    private InnerClass generateSerializer(TopLevelClass topLevelClass, List<IntrospectedColumn> introspectedColumns) {
+        InnerClass serializer = new InnerClass(new FullyQualifiedJavaType(SERIALIZER_CLASS));
+        serializer.setVisibility(JavaVisibility.PUBLIC);
+        serializer.setStatic(true);
+        FullyQualifiedJavaType superClass = new FullyQualifiedJavaType(JSON_SERIALIZER.getFullyQualifiedName());
+        superClass.addTypeArgument(topLevelClass.getType());
+        serializer.setSuperClass(superClass);
+
+        Method serialize = new Method("serialize");
+        serialize.setVisibility(JavaVisibility.PUBLIC);
+        serialize.addAnnotation("@Override");
+        serialize.addParameter(new Parameter(topLevelClass.getType(), "value"));
+        serialize.addParameter(new Parameter(JSON_GENERATOR, "generator"));
+        serialize.addParameter(new Parameter(SERIALIZER_PROVIDER, "provider"));
+        serialize.addException(IO_EXCEPTION);
+        serialize.addBodyLine(arrayShape ? "generator.writeStartArray();" : "generator.writeStartObject();");
+
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            String property = introspectedColumn.getJavaProperty();
+            FullyQualifiedJavaType type = introspectedColumn.getFullyQualifiedJavaType();
+
+            // the field names are not written in array shape
+            String serializedName = SERIALIZED_FIELD_PREFIX + property.toUpperCase();
+            if(!arrayShape) {
+                Field serializedNameField = new Field(serializedName, SERIALIZED_STRING);
+                serializedNameField.setVisibility(JavaVisibility.PRIVATE);
+                serializedNameField.setStatic(true);
+                serializedNameField.setFinal(true);
+                serializedNameField.setInitializationString("new SerializedString(" + getFieldNameConstantName(property) + ")");
+                serializer.addField(serializedNameField);
+            }
+
+            String getter = "value." + getGetterMethodName(property, type) + "()";
+            String write = getWriteStatement(type, getter);
+            String inclusion = getInclusion(introspectedColumn);
+            if("NON_NULL".equals(inclusion) || "NON_DEFAULT".equals(inclusion)) {
+                String defaultValue = getDefaultValue(type);
+                serialize.addBodyLine("if (" + getter + " != " + defaultValue + ") {");
+                serialize.addBodyLine("generator.writeFieldName(" + serializedName + ");");
+                serialize.addBodyLine(write);
+                serialize.addBodyLine("}");
+                continue;
+            }
+            if(!arrayShape) {
+                serialize.addBodyLine("generator.writeFieldName(" + serializedName + ");");
+            }
+            if(type.isPrimitive()) {
+                serialize.addBodyLine(write);
+            } else {
+                serialize.addBodyLine("if (" + getter + " == null) {");
+                serialize.addBodyLine("generator.writeNull();");
+                serialize.addBodyLine("} else {");
+                serialize.addBodyLine(write);
+                serialize.addBodyLine("}");
+            }
+        }
+
+        serialize.addBodyLine(arrayShape ? "generator.writeEndArray();" : "generator.writeEndObject();");
+        serializer.addMethod(serialize);
+        return serializer;
+    }
+
+
+    private static String getWriteStatement(FullyQualifiedJavaType type, String value) {
+        switch(type.getFullyQualifiedName()) {
+            case "boolean":
+            case "java.lang.Boolean":
+                return "generator.writeBoolean(" + value + ");";
+            case "byte":
+            case "short":
+            case "int":
+            case "long":
+            case "float":
+            case "double":
+            case "java.lang.Byte":
+            case "java.lang.Short":
+            case "java.lang.Integer":
+            case "java.lang.Long":
+            case "java.lang.Float":
+            case "java.lang.Double":
+            case "java.math.BigDecimal":
+            case "java.math.BigInteger":
+                return "generator.writeNumber(" + value + ");";
+            case "java.lang.String":
+                return "generator.writeString(" + value + ");";
+            case "byte[]":
+                return "generator.writeBinary(" + value + ");";
+            default:
+                return "provider.defaultSerializeValue(" + value + ", generator);";
+        }
+    }
+
+
+    private InnerClass generateDeserializer(TopLevelClass topLevelClass, List<IntrospectedColumn> introspectedColumns, IntrospectedTable introspectedTable) {
+        InnerClass deserializer = new InnerClass(new FullyQualifiedJavaType(DESERIALIZER_CLASS));
+        deserializer.setVisibility(JavaVisibility.PUBLIC);
+        deserializer.setStatic(true);
+        FullyQualifiedJavaType superClass = new FullyQualifiedJavaType(JSON_DESERIALIZER.getFullyQualifiedName());
+        superClass.addTypeArgument(topLevelClass.getType());
+        deserializer.setSuperClass(superClass);
+
+        Method deserialize = new Method("deserialize");
+        deserialize.setVisibility(JavaVisibility.PUBLIC);
+        deserialize.addAnnotation("@Override");
+        deserialize.setReturnType(topLevelClass.getType());
+        deserialize.addParameter(new Parameter(JSON_PARSER, "jsonParser"));
+        deserialize.addParameter(new Parameter(DESERIALIZATION_CONTEXT, "jsonContext"));
+        deserialize.addException(IO_EXCEPTION);
+
+        String className = topLevelClass.getType().getShortName();
+        Optional<Method> constructor = findArgumentsConstructor(topLevelClass, introspectedTable);
+        if(constructor.isPresent()) {
+            for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+                FullyQualifiedJavaType type = introspectedColumn.getFullyQualifiedJavaType();
+                deserialize.addBodyLine(type.getShortName() + " " + introspectedColumn.getJavaProperty() + " = "
+                        + getDefaultValue(type) + ";");
+            }
+        } else {
+            deserialize.addBodyLine(className + " jsonResult = new " + className + "();");
+        }
+
+        deserialize.addBodyLine("JsonToken jsonToken = jsonParser.getCurrentToken();");
+        if(arrayShape) {
+            deserialize.addBodyLine("if (jsonToken == JsonToken.START_ARRAY) {");
+            for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+                deserialize.addBodyLine("jsonToken = jsonParser.nextToken();");
+                deserialize.addBodyLine(getAssignStatement(introspectedColumn, constructor.isPresent()));
+            }
+            // leave the parser on the END_ARRAY token
+            deserialize.addBodyLine("jsonParser.nextToken();");
+            deserialize.addBodyLine("} else {");
+        }
+        deserialize.addBodyLine("if (jsonToken == JsonToken.START_OBJECT) {");
+        deserialize.addBodyLine("jsonToken = jsonParser.nextToken();");
+        deserialize.addBodyLine("}");
+        deserialize.addBodyLine("for (; jsonToken == JsonToken.FIELD_NAME; jsonToken = jsonParser.nextToken()) {");
+        deserialize.addBodyLine("String jsonFieldName = jsonParser.getCurrentName();");
+        deserialize.addBodyLine("jsonToken = jsonParser.nextToken();");
+        deserialize.addBodyLine("switch (jsonFieldName) {");
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            deserialize.addBodyLine("case " + getFieldNameConstantName(introspectedColumn.getJavaProperty()) + ":");
+            deserialize.addBodyLine(getAssignStatement(introspectedColumn, constructor.isPresent()));
+            deserialize.addBodyLine("break;");
+        }
+        deserialize.addBodyLine("default:");
+        deserialize.addBodyLine("jsonParser.skipChildren();");
+        deserialize.addBodyLine("}");
+        deserialize.addBodyLine("}");
+        if(arrayShape) {
+            deserialize.addBodyLine("}");
+        }
+
+        if(constructor.isPresent()) {
+            StringBuilder sb = new StringBuilder("return new ").append(className).append('(');
+            boolean first = true;
+            for(Parameter parameter : constructor.get().getParameters()) {
+                if(!first) {
+                    sb.append(", ");
+                }
+                sb.append(parameter.getName());
+                first = false;
+            }
+            deserialize.addBodyLine(sb.append(");").toString());
+        } else {
+            deserialize.addBodyLine("return jsonResult;");
+        }
+
+        deserializer.addMethod(deserialize);
+        return deserializer;
+    }
+
+
+    private static String getAssignStatement(IntrospectedColumn introspectedColumn, boolean constructorBased) {
+        String property = introspectedColumn.getJavaProperty();
+        String read = getReadExpression(introspectedColumn.getFullyQualifiedJavaType());
+        if(constructorBased) {
+            return property + " = " + read + ";";
+        }
+        return "jsonResult." + getSetterMethodName(property) + "(" + read + ");";
+    }
+
+
+    /**
+     * Returns the constructor taking a value for each column, if the class is built through its constructor.
+     * @param topLevelClass
+     * @param introspectedTable
+     * @return
+     */
+    private static Optional<Method> findArgumentsConstructor(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        if(!introspectedTable.isImmutable() && !introspectedTable.isConstructorBased()) {
+            return Optional.empty();
+        }
+        return topLevelClass.getMethods().stream()
+                .filter(method -> method.isConstructor() && !method.getParameters().isEmpty())
+                .findFirst();
+    }
+
+
+    private static String getDefaultValue(FullyQualifiedJavaType type) {
+        if(!type.isPrimitive()) {
+            return "null";
+        }
+        return "boolean".equals(type.getFullyQualifiedName()) ? "false" : "0";
+    }
+
+
+    /**
+     * Returns the expression reading the current value of the parser, null values being read as null for
+     * non-primitive types, and as the default value for primitive types, as Jackson does unless
+     * FAIL_ON_NULL_FOR_PRIMITIVES is enabled.
+     * @param type
+     * @return
+     */
+    private static String getReadExpression(FullyQualifiedJavaType type) {
+        String readMethod = PARSER_READ_METHODS.get(type.getFullyQualifiedName());
+        if(type.isPrimitive()) {
+            return "jsonToken == JsonToken.VALUE_NULL ? " + getDefaultValue(type) + " : jsonParser." + readMethod + "()";
+        }
+        if("java.lang.String".equals(type.getFullyQualifiedName())) {
+            return "jsonParser.getValueAsString()";
+        }
+        String read = readMethod != null ? "jsonParser." + readMethod + "()"
+                : "jsonContext.readValue(jsonParser, " + type.getShortNameWithoutTypeArguments() + ".class)";
+        return "jsonToken == JsonToken.VALUE_NULL ? null : " + read;
     }
 
     
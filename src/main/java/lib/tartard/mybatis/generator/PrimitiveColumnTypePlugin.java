@@ -0,0 +1,85 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.FullyQualifiedJavaType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.mybatis.generator.internal.util.StringUtility.isTrue;
+
+/**
+ * Use primitive types for the non-nullable numeric and boolean columns, instead of their wrappers.
+ * <p>
+ * The columns which may not be set by the application are kept boxed, so that a null value can still mean "let the
+ * database decide": identity, auto increment, generated and sequence columns, and the columns having a default value
+ * unless the <code>includeColumnsWithDefault</code> property is set. A column is also kept boxed when its
+ * <code>primitive</code> property is set to false in a <code>columnOverride</code>.
+ * <p>
+ * The types are changed when the table is initialized, and MyBatis Generator initializes each table with all the
+ * plugins before generating any code: the generation hooks of the other plugins see the primitive types whatever the
+ * declaration order. Only the plugins reading the column types in their own <code>initialized</code> method, such as
+ * {@link IncrementalGenerationPlugin}, see the types of the plugins declared before them.
+ *
+ * @author Alexandre Hausherr
+ * @version 1
+ */
+public class PrimitiveColumnTypePlugin extends PluginAdapter {
+
+    private static final Map<String, FullyQualifiedJavaType> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        PRIMITIVE_TYPES.put("java.lang.Boolean", FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        PRIMITIVE_TYPES.put("java.lang.Byte", new FullyQualifiedJavaType("byte"));
+        PRIMITIVE_TYPES.put("java.lang.Short", new FullyQualifiedJavaType("short"));
+        PRIMITIVE_TYPES.put("java.lang.Integer", FullyQualifiedJavaType.getIntInstance());
+        PRIMITIVE_TYPES.put("java.lang.Long", new FullyQualifiedJavaType("long"));
+        PRIMITIVE_TYPES.put("java.lang.Float", new FullyQualifiedJavaType("float"));
+        PRIMITIVE_TYPES.put("java.lang.Double", new FullyQualifiedJavaType("double"));
+    }
+
+    private boolean includeColumnsWithDefault;
+
+
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        includeColumnsWithDefault = isTrue(properties.getProperty("includeColumnsWithDefault"));
+    }
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        return true;
+    }
+
+
+    @Override
+    public void initialized(IntrospectedTable introspectedTable) {
+        for(IntrospectedColumn introspectedColumn : introspectedTable.getAllColumns()) {
+            FullyQualifiedJavaType primitiveType = PRIMITIVE_TYPES.get(introspectedColumn.getFullyQualifiedJavaType().getFullyQualifiedName());
+            if(primitiveType != null && isAlwaysSet(introspectedColumn)) {
+                introspectedColumn.setFullyQualifiedJavaType(primitiveType);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the value of the column is always set, by the database and by the application.
+     * @param introspectedColumn
+     * @return
+     */
+    private boolean isAlwaysSet(IntrospectedColumn introspectedColumn) {
+        return !introspectedColumn.isNullable()
+                && !introspectedColumn.isIdentity()
+                && !introspectedColumn.isAutoIncrement()
+                && !introspectedColumn.isGeneratedColumn()
+                && !introspectedColumn.isGeneratedAlways()
+                && !introspectedColumn.isSequenceColumn()
+                && (includeColumnsWithDefault || introspectedColumn.getDefaultValue() == null)
+                && !"false".equalsIgnoreCase(introspectedColumn.getProperties().getProperty("primitive"));
+    }
+}
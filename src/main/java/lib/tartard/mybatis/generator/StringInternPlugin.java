@@ -0,0 +1,286 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.GeneratedJavaFile;
+import org.mybatis.generator.api.IntrospectedColumn;
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.*;
+import org.mybatis.generator.config.PropertyRegistry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mybatis.generator.internal.util.StringUtility.isTrue;
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * Deduplicate the values of low-cardinality string columns, such as status or country codes, in the setters and the
+ * constructors of the model classes.
+ * <p>
+ * The values go through a generated <code>StringPool</code> class, in the model target package of the context. The pool
+ * is a fixed size lock-free cache (<code>poolSize</code> property, 1024 by default, rounded up to a power of two and at
+ * most 2^30): each value has a single slot, chosen from its hash code, and replaces the previous value of the slot on a
+ * miss. Its <code>getHits()</code> and <code>getMisses()</code> methods tell how often a value was deduplicated.
+ * <p>
+ * The string columns are deduplicated when their length is at most the <code>maxLength</code> property, or when their
+ * <code>intern</code> property is set to true in a <code>columnOverride</code>. Setting it to false excludes a column.
+ *
+ * @author Alexandre Hausherr
+ * @version 1
+ */
+public class StringInternPlugin extends PluginAdapter {
+
+    private static final String POOL_CLASS = "StringPool";
+
+    private static final int DEFAULT_POOL_SIZE = 1024;
+
+    /**
+     * The pool size is rounded up to a power of two, which must fit in an int.
+     */
+    private static final int MAX_POOL_SIZE = 1 << 30;
+
+    private int maxLength;
+
+    private int poolSize;
+
+    private FullyQualifiedJavaType poolType;
+
+    private boolean poolUsed;
+
+
+    @Override
+    public void setProperties(Properties properties) {
+        super.setProperties(properties);
+        maxLength = getIntProperty(properties, "maxLength", 0);
+        poolSize = getIntProperty(properties, "poolSize", DEFAULT_POOL_SIZE);
+    }
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        if(maxLength < 0) {
+            warnings.add("StringInternPlugin: maxLength must be a positive integer");
+            return false;
+        }
+        if(poolSize <= 0 || poolSize > MAX_POOL_SIZE) {
+            warnings.add("StringInternPlugin: poolSize must be a positive integer, at most " + MAX_POOL_SIZE);
+            return false;
+        }
+        poolType = new FullyQualifiedJavaType(context.getJavaModelGeneratorConfiguration().getTargetPackage() + "." + POOL_CLASS);
+        return true;
+    }
+
+    private static int getIntProperty(Properties properties, String name, int defaultValue) {
+        String value = properties.getProperty(name);
+        if(!stringHasValue(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch(NumberFormatException e) {
+            return -1;
+        }
+    }
+
+
+    /**
+     * The pool is generated as soon as a table has an interned column, even when the generation of its classes is
+     * skipped by {@link IncrementalGenerationPlugin}.
+     * @param introspectedTable
+     */
+    @Override
+    public void initialized(IntrospectedTable introspectedTable) {
+        for(IntrospectedColumn introspectedColumn : introspectedTable.getAllColumns()) {
+            if(isInterned(introspectedColumn)) {
+                poolUsed = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean modelSetterMethodGenerated(Method method, TopLevelClass topLevelClass, IntrospectedColumn introspectedColumn,
+                                              IntrospectedTable introspectedTable, ModelClassType modelClassType) {
+        if(isInterned(introspectedColumn)) {
+            internAssignment(method, topLevelClass, introspectedColumn);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        internConstructorAssignments(topLevelClass, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean modelPrimaryKeyClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        internConstructorAssignments(topLevelClass, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        internConstructorAssignments(topLevelClass, introspectedTable);
+        return true;
+    }
+
+    /**
+     * Generate the pool once all the tables of the context have been generated, if any column uses it.
+     * @return
+     */
+    @Override
+    public List<GeneratedJavaFile> contextGenerateAdditionalJavaFiles() {
+        if(!poolUsed) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new GeneratedJavaFile(generatePool(),
+                context.getJavaModelGeneratorConfiguration().getTargetProject(),
+                context.getProperty(PropertyRegistry.CONTEXT_JAVA_FILE_ENCODING),
+                context.getJavaFormatter()));
+    }
+
+
+    private boolean isInterned(IntrospectedColumn introspectedColumn) {
+        if(!introspectedColumn.isStringColumn() || introspectedColumn.isBLOBColumn()) {
+            return false;
+        }
+        String intern = introspectedColumn.getProperties().getProperty("intern");
+        if(stringHasValue(intern)) {
+            return isTrue(intern);
+        }
+        return introspectedColumn.getLength() > 0 && introspectedColumn.getLength() <= maxLength;
+    }
+
+    /**
+     * The constructors assign the fields declared in the class from their parameters, the other ones being passed to
+     * the super class constructor.
+     * @param topLevelClass
+     * @param introspectedTable
+     */
+    private void internConstructorAssignments(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        for(Method method : topLevelClass.getMethods()) {
+            if(method.isConstructor()) {
+                for(IntrospectedColumn introspectedColumn : introspectedTable.getAllColumns()) {
+                    if(isInterned(introspectedColumn)) {
+                        internAssignment(method, topLevelClass, introspectedColumn);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrite the assignment of the field of the column in a method, <code>this.field = value;</code>, as
+     * <code>this.field = StringPool.intern(value);</code>. The field is found from the java property of the column,
+     * whatever the spacing of the line and the expression of the value, and is only interned once.
+     * @param method
+     * @param topLevelClass
+     * @param introspectedColumn
+     */
+    private void internAssignment(Method method, TopLevelClass topLevelClass, IntrospectedColumn introspectedColumn) {
+        String field = introspectedColumn.getJavaProperty();
+        Pattern assignment = Pattern.compile("\\s*this\\s*\\.\\s*" + Pattern.quote(field) + "\\s*=(?!=)\\s*(.+?)\\s*;\\s*"); //$NON-NLS-1$ //$NON-NLS-2$
+        String interned = POOL_CLASS + ".intern("; //$NON-NLS-1$
+        List<String> bodyLines = method.getBodyLines();
+        for(int i = 0; i < bodyLines.size(); i++) {
+            Matcher matcher = assignment.matcher(bodyLines.get(i));
+            if(matcher.matches() && !matcher.group(1).startsWith(interned)) {
+                bodyLines.set(i, "this." + field + " = " + interned + matcher.group(1) + ");"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                topLevelClass.addImportedType(poolType);
+            }
+        }
+    }
+
+    private TopLevelClass generatePool() {
+        int size = Integer.highestOneBit(poolSize);
+        if(size < poolSize) {
+            size <<= 1;
+        }
+
+        TopLevelClass pool = new TopLevelClass(poolType);
+        pool.setVisibility(JavaVisibility.PUBLIC);
+        pool.setFinal(true);
+        pool.addImportedType("java.util.concurrent.atomic.AtomicReferenceArray"); //$NON-NLS-1$
+        pool.addImportedType("java.util.concurrent.atomic.LongAdder"); //$NON-NLS-1$
+        pool.addJavaDocLine("/**"); //$NON-NLS-1$
+        pool.addJavaDocLine(" * Bounded pool of the values of the deduplicated string columns, replacing the previous value of a slot on a miss."); //$NON-NLS-1$
+        pool.addJavaDocLine(" * Generated by " + getClass().getSimpleName() + "."); //$NON-NLS-1$ //$NON-NLS-2$
+        pool.addJavaDocLine(" */"); //$NON-NLS-1$
+
+        Field sizeField = new Field("SIZE", FullyQualifiedJavaType.getIntInstance()); //$NON-NLS-1$
+        sizeField.setVisibility(JavaVisibility.PRIVATE);
+        sizeField.setStatic(true);
+        sizeField.setFinal(true);
+        sizeField.setInitializationString(String.valueOf(size));
+        pool.addField(sizeField);
+
+        Field entries = new Field("ENTRIES", new FullyQualifiedJavaType("java.util.concurrent.atomic.AtomicReferenceArray<String>")); //$NON-NLS-1$ //$NON-NLS-2$
+        entries.setVisibility(JavaVisibility.PRIVATE);
+        entries.setStatic(true);
+        entries.setFinal(true);
+        entries.setInitializationString("new AtomicReferenceArray<>(SIZE)"); //$NON-NLS-1$
+        pool.addField(entries);
+
+        for(String counter : new String[] { "HITS", "MISSES" }) { //$NON-NLS-1$ //$NON-NLS-2$
+            Field field = new Field(counter, new FullyQualifiedJavaType("java.util.concurrent.atomic.LongAdder")); //$NON-NLS-1$
+            field.setVisibility(JavaVisibility.PRIVATE);
+            field.setStatic(true);
+            field.setFinal(true);
+            field.setInitializationString("new LongAdder()"); //$NON-NLS-1$
+            pool.addField(field);
+        }
+
+        Method constructor = new Method(POOL_CLASS);
+        constructor.setConstructor(true);
+        constructor.setVisibility(JavaVisibility.PRIVATE);
+        constructor.addBodyLine("// static methods only"); //$NON-NLS-1$
+        pool.addMethod(constructor);
+
+        FullyQualifiedJavaType string = FullyQualifiedJavaType.getStringInstance();
+        Method intern = new Method("intern"); //$NON-NLS-1$
+        intern.setVisibility(JavaVisibility.PUBLIC);
+        intern.setStatic(true);
+        intern.setReturnType(string);
+        intern.addParameter(new Parameter(string, "value")); //$NON-NLS-1$
+        intern.addJavaDocLine("/**"); //$NON-NLS-1$
+        intern.addJavaDocLine(" * Returns the pooled instance equal to the value, pooling the value if there is none."); //$NON-NLS-1$
+        intern.addJavaDocLine(" */"); //$NON-NLS-1$
+        intern.addBodyLine("if (value == null) {"); //$NON-NLS-1$
+        intern.addBodyLine("return null;"); //$NON-NLS-1$
+        intern.addBodyLine("}"); //$NON-NLS-1$
+        intern.addBodyLine("int hash = value.hashCode();"); //$NON-NLS-1$
+        intern.addBodyLine("int index = (hash ^ (hash >>> 16)) & (SIZE - 1);"); //$NON-NLS-1$
+        intern.addBodyLine("String pooled = ENTRIES.get(index);"); //$NON-NLS-1$
+        intern.addBodyLine("if (value.equals(pooled)) {"); //$NON-NLS-1$
+        intern.addBodyLine("HITS.increment();"); //$NON-NLS-1$
+        intern.addBodyLine("return pooled;"); //$NON-NLS-1$
+        intern.addBodyLine("}"); //$NON-NLS-1$
+        intern.addBodyLine("ENTRIES.lazySet(index, value);"); //$NON-NLS-1$
+        intern.addBodyLine("MISSES.increment();"); //$NON-NLS-1$
+        intern.addBodyLine("return value;"); //$NON-NLS-1$
+        pool.addMethod(intern);
+
+        pool.addMethod(generateCounterGetter("getHits", "HITS")); //$NON-NLS-1$ //$NON-NLS-2$
+        pool.addMethod(generateCounterGetter("getMisses", "MISSES")); //$NON-NLS-1$ //$NON-NLS-2$
+
+        Method reset = new Method("resetStatistics"); //$NON-NLS-1$
+        reset.setVisibility(JavaVisibility.PUBLIC);
+        reset.setStatic(true);
+        reset.addBodyLine("HITS.reset();"); //$NON-NLS-1$
+        reset.addBodyLine("MISSES.reset();"); //$NON-NLS-1$
+        pool.addMethod(reset);
+
+        return pool;
+    }
+
+    private static Method generateCounterGetter(String name, String counter) {
+        Method method = new Method(name);
+        method.setVisibility(JavaVisibility.PUBLIC);
+        method.setStatic(true);
+        method.setReturnType(new FullyQualifiedJavaType("long")); //$NON-NLS-1$
+        method.addBodyLine("return " + counter + ".sum();"); //$NON-NLS-1$ //$NON-NLS-2$
+        return method;
+    }
+}
@@ -0,0 +1,133 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.dom.xml.Attribute;
+import org.mybatis.generator.api.dom.xml.Document;
+import org.mybatis.generator.api.dom.xml.XmlElement;
+import org.mybatis.generator.config.JavaClientGeneratorConfiguration;
+import org.mybatis.generator.plugins.CachePlugin;
+
+import java.util.List;
+
+import static org.mybatis.generator.internal.util.StringUtility.isTrue;
+import static org.mybatis.generator.internal.util.StringUtility.stringHasValue;
+
+/**
+ * Extension of the mybatis Cache plugin configurable per table.
+ * <p>
+ * As with the mybatis plugin, the <code>cache_eviction</code>, <code>cache_flushInterval</code>,
+ * <code>cache_readOnly</code>, <code>cache_size</code> and <code>cache_type</code> attributes of the
+ * <code>&lt;cache&gt;</code> element are read from the table properties, then from the plugin properties. In addition,
+ * the following properties are read the same way:
+ * <ul>
+ *     <li><code>cache_enabled</code>: set to false to generate no cache for the table</li>
+ *     <li><code>cache_ref</code>: namespace of another mapper, whose cache is shared with a
+ *     <code>&lt;cache-ref&gt;</code> element instead of generating a <code>&lt;cache&gt;</code> element</li>
+ *     <li><code>cache_useCache</code> and <code>cache_flushCache</code>: attributes of the select statements of the
+ *     table, true and false by default</li>
+ * </ul>
+ * Only XML sql maps are supported: a warning is reported when the client is an annotated mapper, which has no sql map
+ * to add the cache to.
+ *
+ * @author Alexandre Hausherr
+ */
+public class TableCachePlugin extends CachePlugin {
+
+    private static final String ENABLED_PROPERTY = "cache_enabled"; //$NON-NLS-1$
+
+    private static final String REF_PROPERTY = "cache_ref"; //$NON-NLS-1$
+
+    private static final String USE_CACHE_PROPERTY = "cache_useCache"; //$NON-NLS-1$
+
+    private static final String FLUSH_CACHE_PROPERTY = "cache_flushCache"; //$NON-NLS-1$
+
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        for(String property : new String[] { ENABLED_PROPERTY, USE_CACHE_PROPERTY, FLUSH_CACHE_PROPERTY }) {
+            String value = properties.getProperty(property);
+            if(stringHasValue(value) && !"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) { //$NON-NLS-1$ //$NON-NLS-2$
+                warnings.add("TableCachePlugin: " + property + " must be true or false, was " + value); //$NON-NLS-1$ //$NON-NLS-2$
+                return false;
+            }
+        }
+        JavaClientGeneratorConfiguration clientConfiguration = context.getJavaClientGeneratorConfiguration();
+        if(clientConfiguration != null && "ANNOTATEDMAPPER".equalsIgnoreCase(clientConfiguration.getConfigurationType())) { //$NON-NLS-1$
+            warnings.add("TableCachePlugin: the annotated mappers of context " + context.getId() + " have no sql map, no cache is generated"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        return super.validate(warnings);
+    }
+
+    @Override
+    public boolean sqlMapDocumentGenerated(Document document, IntrospectedTable introspectedTable) {
+        if(!isCacheEnabled(introspectedTable)) {
+            return true;
+        }
+        String ref = getProperty(introspectedTable, REF_PROPERTY);
+        if(!stringHasValue(ref)) {
+            return super.sqlMapDocumentGenerated(document, introspectedTable);
+        }
+        XmlElement element = new XmlElement("cache-ref"); //$NON-NLS-1$
+        element.addAttribute(new Attribute("namespace", ref)); //$NON-NLS-1$
+        context.getCommentGenerator().addComment(element);
+        document.getRootElement().addElement(element);
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapSelectByPrimaryKeyElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        addCacheAttributes(element, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapSelectByExampleWithoutBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        addCacheAttributes(element, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapSelectByExampleWithBLOBsElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        addCacheAttributes(element, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapCountByExampleElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        addCacheAttributes(element, introspectedTable);
+        return true;
+    }
+
+    @Override
+    public boolean sqlMapSelectAllElementGenerated(XmlElement element, IntrospectedTable introspectedTable) {
+        addCacheAttributes(element, introspectedTable);
+        return true;
+    }
+
+
+    private void addCacheAttributes(XmlElement element, IntrospectedTable introspectedTable) {
+        if(!isCacheEnabled(introspectedTable)) {
+            return;
+        }
+        String useCache = getProperty(introspectedTable, USE_CACHE_PROPERTY);
+        String flushCache = getProperty(introspectedTable, FLUSH_CACHE_PROPERTY);
+        element.addAttribute(new Attribute("useCache", String.valueOf(!stringHasValue(useCache) || isTrue(useCache)))); //$NON-NLS-1$
+        element.addAttribute(new Attribute("flushCache", String.valueOf(isTrue(flushCache)))); //$NON-NLS-1$
+    }
+
+    private boolean isCacheEnabled(IntrospectedTable introspectedTable) {
+        String enabled = getProperty(introspectedTable, ENABLED_PROPERTY);
+        return !stringHasValue(enabled) || isTrue(enabled);
+    }
+
+    /**
+     * Returns the property of the table, or the property of the plugin if the table does not set it.
+     * @param introspectedTable
+     * @param property
+     * @return
+     */
+    private String getProperty(IntrospectedTable introspectedTable, String property) {
+        String value = introspectedTable.getTableConfigurationProperty(property);
+        return stringHasValue(value) ? value : properties.getProperty(property);
+    }
+}
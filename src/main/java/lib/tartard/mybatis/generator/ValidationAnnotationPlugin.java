@@ -9,16 +9,25 @@ import org.mybatis.generator.api.IntrospectedTable;
 import org.mybatis.generator.api.PluginAdapter;
 import org.mybatis.generator.api.dom.java.*;
 
+import static org.mybatis.generator.internal.util.JavaBeansUtil.getGetterMethodName;
 import static org.mybatis.generator.internal.util.StringUtility.isTrue;
 
 /**
  * Add validation annotation to fields.
  * Currently added annotations :
- * - \@NotNull to mandatory fields
+ * - \@NotNull to mandatory fields, unless they are primitives
  * - \@NotBlank to mandatory varchar fields
- * - \@Email to varchar fields which name matches e(-|_)*mail
+ * - \@Email to varchar fields which name contains e[-_]*mail
  * - \@Size to varchar fields limited in size.
  * 
+ * When the generateValidateMethod property is set, the same constraints are also checked by generated plain Java
+ * methods, without any Bean Validation provider:
+ * - a static validate(record, violations) method, failing fast on the first violation when violations is null, and
+ * adding all the violation messages to violations otherwise
+ * - a validate() instance method returning the list of violation messages, empty if the record is valid.
+ * The email check accepts the same addresses as the Bean Validation \@Email of Hibernate Validator, except the quoted
+ * local parts and the IP address domains, which are rejected.
+ * 
  *
  * @author Alexandre Hausherr
  * @version 1
@@ -38,14 +47,26 @@ public class ValidationAnnotationPlugin extends PluginAdapter {
     private static final FullyQualifiedJavaType PATTERN = new FullyQualifiedJavaType("javax.validation.constraints.Pattern");
     private static final FullyQualifiedJavaType VALID = new FullyQualifiedJavaType("javax.validation.Valid");
 
+    private static final String EMAIL_LOCAL_PART_ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~\\u0080-\\uFFFF-]+";
+    private static final String EMAIL_DOMAIN_CHARS = "[a-z0-9\\u0080-\\uFFFF!#$%&'*+/=?^_`{|}~]";
+    private static final String EMAIL_DOMAIN_LABEL = "(" + EMAIL_DOMAIN_CHARS + "-*)*" + EMAIL_DOMAIN_CHARS + "+";
+    /**
+     * Unquoted local part and domain name of Hibernate Validator's email validator, as a Java string literal.
+     */
+    private static final String EMAIL_REGEX_LITERAL = ("\"" + EMAIL_LOCAL_PART_ATOM + "(\\." + EMAIL_LOCAL_PART_ATOM + ")*"
+            + "@" + EMAIL_DOMAIN_LABEL + "(\\." + EMAIL_DOMAIN_LABEL + ")*\"").replace("\\", "\\\\");
+
 
     private boolean annotateGetters;
+
+    private boolean generateValidateMethod;
     
 
     @Override
     public void setProperties(Properties properties) {
         super.setProperties(properties);
         annotateGetters = isTrue(properties.getProperty("annotateGetters"));
+        generateValidateMethod = isTrue(properties.getProperty("generateValidateMethod"));
     }
     
     @Override
@@ -65,8 +86,55 @@ public class ValidationAnnotationPlugin extends PluginAdapter {
         return addAnnotations(method, topLevelClass, introspectedColumn);
     }
     
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        if(generateValidateMethod) {
+            List<IntrospectedColumn> columns = introspectedTable.getRules().generateRecordWithBLOBsClass()
+                    ? introspectedTable.getNonBLOBColumns() : introspectedTable.getAllColumns();
+            addValidateMethods(topLevelClass, introspectedTable, columns);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean modelPrimaryKeyClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        if(generateValidateMethod) {
+            addValidateMethods(topLevelClass, introspectedTable, introspectedTable.getPrimaryKeyColumns());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean modelRecordWithBLOBsClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        if(generateValidateMethod) {
+            addValidateMethods(topLevelClass, introspectedTable, introspectedTable.getAllColumns());
+        }
+        return true;
+    }
+    
+    private static boolean isNotNull(IntrospectedColumn introspectedColumn) {
+        return !introspectedColumn.isNullable() && !introspectedColumn.isIdentity() && !introspectedColumn.isJdbcCharacterColumn()
+                && !introspectedColumn.getFullyQualifiedJavaType().isPrimitive();
+    }
+
+    private static boolean isEmail(IntrospectedColumn introspectedColumn) {
+        return introspectedColumn.getActualColumnName().toLowerCase().matches(".*e[-_]*mail.*");
+    }
+
+    /**
+     * Whether the superclass of the class is another model class of the table, also having the validate methods.
+     * @param topLevelClass
+     * @param introspectedTable
+     * @return
+     */
+    private static boolean extendsModelClass(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        FullyQualifiedJavaType superClass = topLevelClass.getSuperClass();
+        return superClass != null && (superClass.getFullyQualifiedName().equals(introspectedTable.getPrimaryKeyType())
+                || superClass.getFullyQualifiedName().equals(introspectedTable.getBaseRecordType()));
+    }
+    
     private boolean addAnnotations(JavaElement element, TopLevelClass topLevelClass, IntrospectedColumn introspectedColumn) {
-        if(!introspectedColumn.isNullable() && !introspectedColumn.isIdentity() && !introspectedColumn.isJdbcCharacterColumn()) {
+        if(isNotNull(introspectedColumn)) {
             topLevelClass.addImportedType(NOTNULL);
             element.addAnnotation("@NotNull");
         }
@@ -79,7 +147,7 @@ public class ValidationAnnotationPlugin extends PluginAdapter {
             topLevelClass.addImportedType(SIZE);
             element.addAnnotation("@Size(max = " + introspectedColumn.getLength() + ")");
 
-            if(introspectedColumn.getActualColumnName().toLowerCase().contains("e(-|_)*mail")) {
+            if(isEmail(introspectedColumn)) {
                 topLevelClass.addImportedType(EMAIL);
                 element.addAnnotation("@Email");
             }
@@ -88,17 +156,134 @@ public class ValidationAnnotationPlugin extends PluginAdapter {
         return true;
     }
 
+    /**
+     * Add the static validate(record, violations) and the validate() methods checking the constraints of all the
+     * columns of the class, including the ones of its superclasses.
+     * @param topLevelClass
+     * @param introspectedTable
+     * @param introspectedColumns
+     */
+    private void addValidateMethods(TopLevelClass topLevelClass, IntrospectedTable introspectedTable, List<IntrospectedColumn> introspectedColumns) {
+        FullyQualifiedJavaType listType = FullyQualifiedJavaType.getNewListInstance();
+        listType.addTypeArgument(FullyQualifiedJavaType.getStringInstance());
+        topLevelClass.addImportedType(FullyQualifiedJavaType.getNewListInstance());
+        topLevelClass.addImportedType(FullyQualifiedJavaType.getNewArrayListInstance());
+
+        Method staticValidate = new Method("validate");
+        staticValidate.setVisibility(JavaVisibility.PUBLIC);
+        staticValidate.setStatic(true);
+        staticValidate.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+        staticValidate.addParameter(new Parameter(topLevelClass.getType(), "record"));
+        staticValidate.addParameter(new Parameter(listType, "violations"));
+        staticValidate.addBodyLine("boolean valid = true;");
+
+        int constraintCount = 0;
+        boolean usesBlank = false;
+        boolean usesEmail = false;
+        for(IntrospectedColumn introspectedColumn : introspectedColumns) {
+            FullyQualifiedJavaType type = introspectedColumn.getFullyQualifiedJavaType();
+            String property = introspectedColumn.getJavaProperty();
+            String value = "record." + getGetterMethodName(property, type) + "()";
+
+            if(isNotNull(introspectedColumn)) {
+                addConstraintCheck(staticValidate, value + " == null", property + " must not be null");
+                constraintCount++;
+            }
+
+            if(introspectedColumn.isJdbcCharacterColumn()) {
+                if(!introspectedColumn.isNullable()) {
+                    addConstraintCheck(staticValidate, value + " == null || isBlank(" + value + ")", property + " must not be blank");
+                    constraintCount++;
+                    usesBlank = true;
+                }
+                addConstraintCheck(staticValidate, value + " != null && " + value + ".length() > " + introspectedColumn.getLength(),
+                        property + " size must be at most " + introspectedColumn.getLength());
+                constraintCount++;
+
+                if(isEmail(introspectedColumn)) {
+                    addConstraintCheck(staticValidate, value + " != null && !isEmail(" + value + ")",
+                            property + " must be a well-formed email address");
+                    constraintCount++;
+                    usesEmail = true;
+                }
+            }
+        }
+        staticValidate.addBodyLine("return valid;");
+        topLevelClass.addMethod(staticValidate);
+
+        Method validate = new Method("validate");
+        validate.setVisibility(JavaVisibility.PUBLIC);
+        validate.setReturnType(listType);
+        if(extendsModelClass(topLevelClass, introspectedTable)) {
+            validate.addAnnotation("@Override");
+        }
+        validate.addBodyLine("List<String> violations = new ArrayList<>(" + constraintCount + ");");
+        validate.addBodyLine("validate(this, violations);");
+        validate.addBodyLine("return violations;");
+        topLevelClass.addMethod(validate);
+
+        if(usesBlank) {
+            Method isBlank = new Method("isBlank");
+            isBlank.setVisibility(JavaVisibility.PRIVATE);
+            isBlank.setStatic(true);
+            isBlank.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+            isBlank.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "value"));
+            isBlank.addBodyLine("for (int i = 0; i < value.length(); i++) {");
+            isBlank.addBodyLine("if (!Character.isWhitespace(value.charAt(i))) {");
+            isBlank.addBodyLine("return false;");
+            isBlank.addBodyLine("}");
+            isBlank.addBodyLine("}");
+            isBlank.addBodyLine("return true;");
+            topLevelClass.addMethod(isBlank);
+        }
+
+        if(usesEmail) {
+            FullyQualifiedJavaType patternType = new FullyQualifiedJavaType("java.util.regex.Pattern");
+            topLevelClass.addImportedType(patternType);
+            Field emailPattern = new Field("EMAIL_PATTERN", patternType);
+            emailPattern.setVisibility(JavaVisibility.PRIVATE);
+            emailPattern.setStatic(true);
+            emailPattern.setFinal(true);
+            emailPattern.setInitializationString("Pattern.compile(" + EMAIL_REGEX_LITERAL + ", Pattern.CASE_INSENSITIVE)");
+            topLevelClass.addField(emailPattern);
+
+            // empty values are valid, as for @Email, and the lengths are limited as by Hibernate Validator
+            Method isEmail = new Method("isEmail");
+            isEmail.setVisibility(JavaVisibility.PRIVATE);
+            isEmail.setStatic(true);
+            isEmail.setReturnType(FullyQualifiedJavaType.getBooleanPrimitiveInstance());
+            isEmail.addParameter(new Parameter(FullyQualifiedJavaType.getStringInstance(), "value"));
+            isEmail.addBodyLine("if (value.isEmpty()) {");
+            isEmail.addBodyLine("return true;");
+            isEmail.addBodyLine("}");
+            isEmail.addBodyLine("int at = value.lastIndexOf('@');");
+            isEmail.addBodyLine("return at > 0 && at <= 64 && value.length() - at - 1 <= 255 && EMAIL_PATTERN.matcher(value).matches();");
+            topLevelClass.addMethod(isEmail);
+        }
+    }
+
+    private static void addConstraintCheck(Method method, String violationCondition, String message) {
+        method.addBodyLine("if (" + violationCondition + ") {");
+        method.addBodyLine("if (violations == null) {");
+        method.addBodyLine("return false;");
+        method.addBodyLine("}");
+        method.addBodyLine("violations.add(\"" + message + "\");");
+        method.addBodyLine("valid = false;");
+        method.addBodyLine("}");
+    }
+
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ValidationAnnotationPlugin that = (ValidationAnnotationPlugin) o;
-        return annotateGetters == that.annotateGetters;
+        return annotateGetters == that.annotateGetters
+                && generateValidateMethod == that.generateValidateMethod;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(annotateGetters);
+        return Objects.hash(annotateGetters, generateValidateMethod);
     }
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package lib.tartard.mybatis.generator;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Run the generated batch insert methods of an annotated mapper on an in-memory H2 database.
+ *
+ * @author Alexandre Hausherr
+ */
+public class BatchInsertPluginTest {
+
+    private static final String DDL = "CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(20))";
+
+    private static final String URL = "jdbc:h2:mem:batchInsert;DB_CLOSE_DELAY=-1";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Class<?> recordClass;
+
+    private Class<?> mapperClass;
+
+    private Connection connection;
+
+
+    @Before
+    public void generate() throws Exception {
+        ClassLoader classLoader = new GeneratorTestSupport()
+                .ddl(DDL)
+                .plugin(BatchInsertPlugin.class, "chunkSize", "2")
+                .clientType("ANNOTATEDMAPPER")
+                .table("ITEM")
+                .generate(folder.getRoot().toPath())
+                .compile();
+        recordClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".Item");
+        mapperClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".ItemMapper");
+
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try(Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS item");
+            statement.execute(DDL);
+        }
+    }
+
+    @After
+    public void close() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void insertsInChunks() throws Exception {
+        List<Object> records = new ArrayList<>();
+        for(int id = 1; id <= 5; id++) {
+            Object record = recordClass.getConstructor().newInstance();
+            recordClass.getMethod("setId", Integer.class).invoke(record, id);
+            recordClass.getMethod("setName", String.class).invoke(record, "item " + id);
+            records.add(record);
+        }
+        assertEquals(5, batchInsertInChunks(records, 2));
+        assertEquals(5, countRows());
+    }
+
+    @Test
+    public void emptyListIsNotInserted() throws Exception {
+        assertEquals(0, batchInsertInChunks(Collections.emptyList(), 2));
+        assertEquals(0, batchInsertInChunks(Collections.emptyList(), null));
+        assertEquals(0, countRows());
+    }
+
+    @Test
+    public void chunkSizeMustBePositive() throws Exception {
+        for(int chunkSize : new int[] { 0, -1 }) {
+            try {
+                batchInsertInChunks(Collections.emptyList(), chunkSize);
+                fail("chunkSize " + chunkSize + " accepted");
+            } catch(IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("chunkSize"));
+            }
+        }
+    }
+
+    /**
+     * Call a batchInsertInChunks method of the mapper, with the default chunk size when it is null.
+     * @param records
+     * @param chunkSize
+     * @return
+     * @throws Exception
+     */
+    private int batchInsertInChunks(List<Object> records, Integer chunkSize) throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver", URL, "sa", "");
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(mapperClass);
+        try(SqlSession session = new SqlSessionFactoryBuilder().build(configuration).openSession(true)) {
+            Object mapper = session.getMapper(mapperClass);
+            try {
+                if(chunkSize == null) {
+                    Method method = mapperClass.getMethod("batchInsertInChunks", List.class);
+                    return (Integer) method.invoke(mapper, records);
+                }
+                Method method = mapperClass.getMethod("batchInsertInChunks", List.class, int.class);
+                return (Integer) method.invoke(mapper, records, chunkSize);
+            } catch(InvocationTargetException e) {
+                if(e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private int countRows() throws Exception {
+        try(Statement statement = connection.createStatement(); ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM item")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package lib.tartard.mybatis.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Generate and compile the binary codecs of a table with BLOBs, and read back the records they write.
+ *
+ * @author Alexandre Hausherr
+ */
+public class BinaryCodecPluginTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void hierarchicalRecordWithBLOBsRoundTrips() throws Exception {
+        roundTrip("hierarchical");
+    }
+
+    @Test
+    public void conditionalRecordWithBLOBsRoundTrips() throws Exception {
+        roundTrip("conditional");
+    }
+
+    @Test
+    public void unsupportedColumnIsReported() throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl("CREATE TABLE tagged (id INT PRIMARY KEY, tags ARRAY)")
+                .plugin(BinaryCodecPlugin.class)
+                .table("TAGGED")
+                .generate(folder.getRoot().toPath());
+
+        assertTrue(generated.getWarnings().toString(), generated.getWarnings().stream()
+                .anyMatch(warning -> warning.startsWith("BinaryCodecPlugin:") && warning.contains("TAGS") && warning.contains("TAGGED")));
+        assertFalse(generated.source("Tagged").contains("readFrom"));
+    }
+
+    @Test
+    public void immutableRecordUsesTheColumnsConstructor() throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl("CREATE TABLE country (id INT PRIMARY KEY, code VARCHAR(2), record VARCHAR(20))")
+                .plugin(CopyConstructorPlugin.class)
+                .plugin(BinaryCodecPlugin.class)
+                .modelProperty("immutable", "true")
+                .defaultModelType("flat")
+                .table("COUNTRY")
+                .generate(folder.getRoot().toPath());
+        assertTrue(generated.getWarnings().toString(), generated.getWarnings().isEmpty());
+        Class<?> recordClass = generated.compile().loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".Country");
+
+        Object record = recordClass.getConstructor(Integer.class, String.class, String.class).newInstance(7, "FR", null);
+        ByteBuffer buffer = ByteBuffer.allocate((Integer) recordClass.getMethod("estimateSize").invoke(record));
+        recordClass.getMethod("writeTo", ByteBuffer.class).invoke(record, buffer);
+        buffer.flip();
+        Object read = recordClass.getMethod("readFrom", ByteBuffer.class).invoke(null, buffer);
+
+        assertEquals(7, recordClass.getMethod("getId").invoke(read));
+        assertEquals("FR", recordClass.getMethod("getCode").invoke(read));
+        assertNull(recordClass.getMethod("getRecord").invoke(read));
+    }
+
+    private void roundTrip(String defaultModelType) throws Exception {
+        ClassLoader classLoader = new GeneratorTestSupport()
+                .ddl("CREATE TABLE account (id BIGINT PRIMARY KEY, balance DECIMAL(10,2), created TIMESTAMP, opened DATE,"
+                        + " notes CLOB, photo BLOB, record VARCHAR(20), buffer INT, codec_nulls0 INT)")
+                .plugin(BinaryCodecPlugin.class)
+                .defaultModelType(defaultModelType)
+                .table("ACCOUNT")
+                .generate(folder.newFolder(defaultModelType).toPath())
+                .compile();
+        Class<?> recordClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".AccountWithBLOBs");
+
+        Object record = recordClass.getConstructor().newInstance();
+        recordClass.getMethod("setId", Long.class).invoke(record, 42L);
+        recordClass.getMethod("setBalance", BigDecimal.class).invoke(record, new BigDecimal("-1234.50"));
+        recordClass.getMethod("setCreated", Date.class).invoke(record, new Date(1600000000123L));
+        recordClass.getMethod("setNotes", String.class).invoke(record, "notes é");
+        recordClass.getMethod("setPhoto", byte[].class).invoke(record, "photo".getBytes(StandardCharsets.UTF_8));
+        // columns named after the variables of the codec methods
+        recordClass.getMethod("setRecord", String.class).invoke(record, "record");
+        recordClass.getMethod("setBuffer", Integer.class).invoke(record, 7);
+
+        ByteBuffer buffer = ByteBuffer.allocate((Integer) recordClass.getMethod("estimateSize").invoke(record));
+        recordClass.getMethod("writeTo", ByteBuffer.class).invoke(record, buffer);
+        buffer.flip();
+        Object read = recordClass.getMethod("readFrom", ByteBuffer.class).invoke(null, buffer);
+
+        assertEquals(0, buffer.remaining());
+        assertEquals(42L, recordClass.getMethod("getId").invoke(read));
+        assertEquals(new BigDecimal("-1234.50"), recordClass.getMethod("getBalance").invoke(read));
+        assertEquals(new Date(1600000000123L), recordClass.getMethod("getCreated").invoke(read));
+        assertNull(recordClass.getMethod("getOpened").invoke(read));
+        assertEquals("notes é", recordClass.getMethod("getNotes").invoke(read));
+        assertArrayEquals("photo".getBytes(StandardCharsets.UTF_8), (byte[]) recordClass.getMethod("getPhoto").invoke(read));
+        assertEquals("record", recordClass.getMethod("getRecord").invoke(read));
+        assertEquals(7, recordClass.getMethod("getBuffer").invoke(read));
+        assertNull(recordClass.getMethod("getCodecNulls0").invoke(read));
+    }
+}
@@ -0,0 +1,171 @@
+package lib.tartard.mybatis.generator;
+
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Generate and compile the batch of a table with nullable, primitive, object and BLOB columns, and read back the
+ * records it stores.
+ *
+ * @author Alexandre Hausherr
+ */
+public class ColumnarBatchPluginTest {
+
+    private static final String DDL = "CREATE TABLE reading (id INT PRIMARY KEY, amount INT, taken DATE,"
+            + " quantity INT NOT NULL, label VARCHAR(20), index INT, photo BLOB)";
+
+    private static final String[] PROPERTIES = { "Id", "Amount", "Taken", "Quantity", "Label", "Index" };
+
+    /**
+     * More rows than the default capacity of a batch, 16.
+     */
+    private static final int ROWS = 40;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void recordsRoundTrip() throws Exception {
+        ClassLoader classLoader = generate(false).compile();
+        Class<?> recordClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".Reading");
+        Class<?> batchClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".ReadingBatch");
+
+        List<Object> records = new ArrayList<>();
+        for(int i = 0; i < ROWS; i++) {
+            Object record = recordClass.getConstructor().newInstance();
+            recordClass.getMethod("setId", int.class).invoke(record, i);
+            recordClass.getMethod("setAmount", Integer.class).invoke(record, getAmount(i));
+            recordClass.getMethod("setTaken", Date.class).invoke(record, getTaken(i));
+            recordClass.getMethod("setQuantity", int.class).invoke(record, i * 2);
+            recordClass.getMethod("setLabel", String.class).invoke(record, getLabel(i));
+            recordClass.getMethod("setIndex", Integer.class).invoke(record, getIndex(i));
+            recordClass.getMethod("setPhoto", byte[].class).invoke(record, getPhoto(i));
+            records.add(record);
+        }
+
+        Object batch = batchClass.getConstructor().newInstance();
+        // half of the records through the result handler, the other half with add
+        DefaultResultContext<Object> context = new DefaultResultContext<>();
+        for(int i = 0; i < ROWS / 2; i++) {
+            context.nextResultObject(records.get(i));
+            batchClass.getMethod("handleResult", ResultContext.class).invoke(batch, context);
+        }
+        for(int i = ROWS / 2; i < ROWS; i++) {
+            batchClass.getMethod("add", recordClass).invoke(batch, records.get(i));
+        }
+        assertEquals(ROWS, batchClass.getMethod("size").invoke(batch));
+        assertEquals(int[].class, batchClass.getMethod("getQuantityValues").getReturnType());
+        assertEquals(long[].class, batchClass.getMethod("getTakenValues").getReturnType());
+
+        for(int row = 0; row < ROWS; row++) {
+            assertEquals(getAmount(row) == null, batchClass.getMethod("isAmountNull", int.class).invoke(batch, row));
+            assertEquals(getTaken(row) == null, batchClass.getMethod("isTakenNull", int.class).invoke(batch, row));
+            assertEquals(getIndex(row) == null, batchClass.getMethod("isIndexNull", int.class).invoke(batch, row));
+            assertEquals(getAmount(row), batchClass.getMethod("getAmount", int.class).invoke(batch, row));
+            assertEquals(getIndex(row), batchClass.getMethod("getIndex", int.class).invoke(batch, row));
+            assertSameRecord(recordClass, records.get(row), batchClass.getMethod("toRecord", int.class).invoke(batch, row));
+        }
+
+        int row = 0;
+        for(Object view : (Iterable<?>) batch) {
+            Class<?> rowClass = view.getClass();
+            assertEquals(row, rowClass.getMethod("rowIndex").invoke(view));
+            assertEquals(getIndex(row), rowClass.getMethod("getIndex").invoke(view));
+            assertEquals(getLabel(row), rowClass.getMethod("getLabel").invoke(view));
+            assertSameRecord(recordClass, records.get(row), rowClass.getMethod("toRecord").invoke(view));
+            row++;
+        }
+        assertEquals(ROWS, row);
+
+        batchClass.getMethod("clear").invoke(batch);
+        assertEquals(0, batchClass.getMethod("size").invoke(batch));
+        assertFalse(((Iterable<?>) batch).iterator().hasNext());
+        assertNull(((String[]) batchClass.getMethod("getLabelValues").invoke(batch))[1]);
+        assertNull(((byte[][]) batchClass.getMethod("getPhotoValues").invoke(batch))[1]);
+        // the null bits of the first row, whose amount was null, are reset
+        batchClass.getMethod("add", recordClass).invoke(batch, records.get(1));
+        assertFalse((Boolean) batchClass.getMethod("isAmountNull", int.class).invoke(batch, 0));
+        assertSameRecord(recordClass, records.get(1), batchClass.getMethod("toRecord", int.class).invoke(batch, 0));
+    }
+
+    @Test
+    public void immutableRecordsUseTheColumnsConstructor() throws Exception {
+        GeneratorTestSupport.Generated generated = generate(true);
+        assertTrue(generated.getWarnings().toString(), generated.getWarnings().isEmpty());
+        ClassLoader classLoader = generated.compile();
+        Class<?> recordClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".Reading");
+        Class<?> batchClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".ReadingBatch");
+
+        Object batch = batchClass.getConstructor().newInstance();
+        List<Object> records = new ArrayList<>();
+        for(int i = 0; i < ROWS; i++) {
+            Object record = recordClass.getConstructor(int.class, Integer.class, Date.class, int.class, String.class, Integer.class, byte[].class)
+                    .newInstance(i, getAmount(i), getTaken(i), i * 2, getLabel(i), getIndex(i), getPhoto(i));
+            batchClass.getMethod("add", recordClass).invoke(batch, record);
+            records.add(record);
+        }
+        for(int row = 0; row < ROWS; row++) {
+            assertSameRecord(recordClass, records.get(row), batchClass.getMethod("toRecord", int.class).invoke(batch, row));
+        }
+    }
+
+    private GeneratorTestSupport.Generated generate(boolean immutable) throws Exception {
+        GeneratorTestSupport generator = new GeneratorTestSupport()
+                .ddl(DDL);
+        if(immutable) {
+            generator.plugin(CopyConstructorPlugin.class)
+                    .modelProperty("immutable", "true");
+        }
+        return generator
+                .plugin(PrimitiveColumnTypePlugin.class)
+                .plugin(ColumnarBatchPlugin.class)
+                .defaultModelType("flat")
+                .table("READING")
+                .generate(folder.getRoot().toPath());
+    }
+
+    private static void assertSameRecord(Class<?> recordClass, Object expected, Object actual) throws Exception {
+        for(String property : PROPERTIES) {
+            Method getter = recordClass.getMethod("get" + property);
+            assertEquals(property, getter.invoke(expected), getter.invoke(actual));
+        }
+        Method getPhoto = recordClass.getMethod("getPhoto");
+        assertArrayEquals((byte[]) getPhoto.invoke(expected), (byte[]) getPhoto.invoke(actual));
+    }
+
+    private static Integer getAmount(int i) {
+        return i % 3 == 0 ? null : i * 10;
+    }
+
+    private static Date getTaken(int i) {
+        return i % 2 == 0 ? null : new Date(1600000000000L + i * 86400000L);
+    }
+
+    private static String getLabel(int i) {
+        return i % 5 == 0 ? null : "label " + i;
+    }
+
+    private static Integer getIndex(int i) {
+        return i % 4 == 0 ? null : 100 + i;
+    }
+
+    private static byte[] getPhoto(int i) {
+        return i % 2 == 1 ? null : ("photo " + i).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,38 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.IntrospectedTable;
+import org.mybatis.generator.api.PluginAdapter;
+import org.mybatis.generator.api.dom.java.Field;
+import org.mybatis.generator.api.dom.java.JavaVisibility;
+import org.mybatis.generator.api.dom.java.Method;
+import org.mybatis.generator.api.dom.java.Parameter;
+import org.mybatis.generator.api.dom.java.TopLevelClass;
+
+import java.util.List;
+
+/**
+ * Test plugin adding a copy constructor to the record classes, before the constructor taking the columns, as another
+ * plugin may.
+ *
+ * @author Alexandre Hausherr
+ */
+public class CopyConstructorPlugin extends PluginAdapter {
+
+    @Override
+    public boolean validate(List<String> warnings) {
+        return true;
+    }
+
+    @Override
+    public boolean modelBaseRecordClassGenerated(TopLevelClass topLevelClass, IntrospectedTable introspectedTable) {
+        Method constructor = new Method(topLevelClass.getType().getShortName());
+        constructor.setConstructor(true);
+        constructor.setVisibility(JavaVisibility.PUBLIC);
+        constructor.addParameter(new Parameter(topLevelClass.getType(), "other"));
+        for(Field field : topLevelClass.getFields()) {
+            constructor.addBodyLine("this." + field.getName() + " = other." + field.getName() + ";");
+        }
+        topLevelClass.getMethods().add(0, constructor);
+        return true;
+    }
+}
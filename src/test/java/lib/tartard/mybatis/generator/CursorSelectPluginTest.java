@@ -0,0 +1,144 @@
+package lib.tartard.mybatis.generator;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Run the generated streaming select methods of an XML and of an annotated mapper on an in-memory H2 database.
+ *
+ * @author Alexandre Hausherr
+ */
+public class CursorSelectPluginTest {
+
+    private static final String DDL = "CREATE TABLE item (id INT PRIMARY KEY, name VARCHAR(20))";
+
+    private static final String URL = "jdbc:h2:mem:cursorSelect;DB_CLOSE_DELAY=-1";
+
+    private static final List<String> NAMES = Arrays.asList("item 1", "item 2", "item 3", "item 4", "item 5");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+
+    @Before
+    public void createTable() throws Exception {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try(Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS item");
+            statement.execute(DDL);
+            for(int id = 1; id <= NAMES.size(); id++) {
+                statement.execute("INSERT INTO item VALUES (" + id + ", '" + NAMES.get(id - 1) + "')");
+            }
+        }
+    }
+
+    @After
+    public void close() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void xmlMapperStreamsRecords() throws Exception {
+        String sqlMap = checkStreamingSelects("XMLMAPPER");
+        assertTrue(sqlMap.contains("id=\"selectByExampleWithCursor\""));
+        assertTrue(sqlMap.contains("fetchSize=\"2\""));
+        assertTrue(sqlMap.contains("resultSetType=\"FORWARD_ONLY\""));
+    }
+
+    @Test
+    public void annotatedMapperStreamsRecords() throws Exception {
+        String mapper = checkStreamingSelects("ANNOTATEDMAPPER");
+        assertTrue(mapper.contains("@Options(fetchSize = 2, resultSetType = ResultSetType.FORWARD_ONLY)"));
+        assertTrue(mapper.contains("@ResultType(Item.class)"));
+    }
+
+    /**
+     * Generate a mapper of the given type, and read the table with its cursor and handler methods.
+     * @param clientType
+     * @return the source of the statements: the sqlMap of an XML mapper or the annotated mapper
+     * @throws Exception
+     */
+    private String checkStreamingSelects(String clientType) throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl(DDL)
+                .plugin(CursorSelectPlugin.class, "fetchSize", "2")
+                .clientType(clientType)
+                .table("ITEM")
+                .generate(folder.getRoot().toPath());
+        ClassLoader classLoader = generated.compile();
+        Class<?> recordClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".Item");
+        Class<?> exampleClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".ItemExample");
+        Class<?> mapperClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".ItemMapper");
+
+        // the statements of an XML mapper resolve their types with the context class loader
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver", URL, "sa", "");
+            Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+            // loads the sqlMap of the same name from the class loader of an XML mapper
+            configuration.addMapper(mapperClass);
+            try(SqlSession session = new SqlSessionFactoryBuilder().build(configuration).openSession()) {
+                Object mapper = session.getMapper(mapperClass);
+                Object example = exampleClass.getConstructor().newInstance();
+                exampleClass.getMethod("setOrderByClause", String.class).invoke(example, "id");
+
+                List<Object> names = new ArrayList<>();
+                try(Cursor<?> cursor = (Cursor<?>) mapperClass.getMethod("selectByExampleWithCursor", exampleClass).invoke(mapper, example)) {
+                    assertFalse(cursor.isConsumed());
+                    for(Object record : cursor) {
+                        names.add(recordClass.getMethod("getName").invoke(record));
+                    }
+                    assertTrue(cursor.isConsumed());
+                }
+                assertEquals(NAMES, names);
+
+                names.clear();
+                ResultHandler<?> handler = context -> {
+                    try {
+                        names.add(recordClass.getMethod("getName").invoke(context.getResultObject()));
+                    } catch(ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+                mapperClass.getMethod("selectByExampleWithHandler", exampleClass, ResultHandler.class).invoke(mapper, example, handler);
+                assertEquals(NAMES, names);
+            }
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+
+        if("XMLMAPPER".equals(clientType)) {
+            return new String(Files.readAllBytes(generated.getResourcesDirectory()
+                    .resolve(GeneratorTestSupport.TARGET_PACKAGE.replace('.', '/') + "/ItemMapper.xml")), StandardCharsets.UTF_8);
+        }
+        return generated.source("ItemMapper");
+    }
+}
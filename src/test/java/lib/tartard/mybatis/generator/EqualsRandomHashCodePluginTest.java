@@ -0,0 +1,129 @@
+package lib.tartard.mybatis.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compare the HashMap bucket spread of the generated hashCode methods for each hash strategy.
+ *
+ * @author Alexandre Hausherr
+ */
+public class EqualsRandomHashCodePluginTest {
+
+    private static final int KEYS_PER_COLUMN = 200;
+
+    private static final int KEYS = KEYS_PER_COLUMN * KEYS_PER_COLUMN;
+
+    /**
+     * Table sizes of a HashMap holding the keys: the default one for the number of keys, and a smaller one.
+     */
+    private static final int[] TABLE_SIZES = { 1 << 16, 1 << 12 };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void murmurSpreadsKeysUniformly() throws Exception {
+        int[] prime = hashes("prime");
+        int[] largePrime = hashes("largePrime");
+        int[] murmur = hashes("murmur");
+
+        for(int tableSize : TABLE_SIZES) {
+            Buckets primeBuckets = new Buckets(prime, tableSize);
+            Buckets largePrimeBuckets = new Buckets(largePrime, tableSize);
+            Buckets murmurBuckets = new Buckets(murmur, tableSize);
+            double uniformAverage = uniformAverageChainLength(KEYS, tableSize);
+            String message = "table size " + tableSize + ", uniform average chain " + uniformAverage
+                    + ", prime " + primeBuckets + ", largePrime " + largePrimeBuckets + ", murmur " + murmurBuckets;
+
+            assertTrue(message, murmurBuckets.averageChainLength() < primeBuckets.averageChainLength());
+            assertTrue(message, murmurBuckets.maxChainLength < primeBuckets.maxChainLength);
+            assertTrue(message, largePrimeBuckets.averageChainLength() <= primeBuckets.averageChainLength());
+            // a uniform hash keeps the chains close to the expectation, and the longest one within a few times of it
+            assertTrue(message, murmurBuckets.averageChainLength() < uniformAverage * 1.1);
+            assertTrue(message, murmurBuckets.maxChainLength < uniformAverage * 6);
+        }
+    }
+
+    /**
+     * Expected average length of the non empty chains, when the keys are spread uniformly over the buckets.
+     * @param keys
+     * @param tableSize
+     * @return
+     */
+    private static double uniformAverageChainLength(int keys, int tableSize) {
+        double occupied = tableSize * (1 - Math.exp(-(double) keys / tableSize));
+        return keys / occupied;
+    }
+
+    /**
+     * Generate the model with the given hash strategy, and hash the records having all the combinations of small
+     * values of their columns.
+     * @param hashStrategy
+     * @return
+     * @throws Exception
+     */
+    private int[] hashes(String hashStrategy) throws Exception {
+        ClassLoader classLoader = new GeneratorTestSupport()
+                .ddl("CREATE TABLE hash_key (region INT, sequence INT, code VARCHAR(10))")
+                .plugin(EqualsRandomHashCodePlugin.class, "hashStrategy", hashStrategy)
+                .table("HASH_KEY")
+                .generate(folder.newFolder(hashStrategy).toPath())
+                .compile();
+        Class<?> recordClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".HashKey");
+
+        int[] hashes = new int[KEYS];
+        int i = 0;
+        for(int region = 0; region < KEYS_PER_COLUMN; region++) {
+            for(int sequence = 0; sequence < KEYS_PER_COLUMN; sequence++) {
+                Object record = recordClass.getConstructor().newInstance();
+                recordClass.getMethod("setRegion", Integer.class).invoke(record, region);
+                recordClass.getMethod("setSequence", Integer.class).invoke(record, sequence);
+                recordClass.getMethod("setCode", String.class).invoke(record, "C" + (region + sequence) % 10);
+                hashes[i++] = record.hashCode();
+            }
+        }
+        return hashes;
+    }
+
+
+    /**
+     * Chains of a HashMap table, the bucket of a hash being computed as HashMap does.
+     */
+    private static final class Buckets {
+
+        private final int occupied;
+
+        private final int maxChainLength;
+
+        private Buckets(int[] hashes, int tableSize) {
+            int[] chains = new int[tableSize];
+            for(int hash : hashes) {
+                chains[(hash ^ hash >>> 16) & (tableSize - 1)]++;
+            }
+            int occupied = 0;
+            int maxChainLength = 0;
+            for(int chain : chains) {
+                if(chain > 0) {
+                    occupied++;
+                    maxChainLength = Math.max(maxChainLength, chain);
+                }
+            }
+            this.occupied = occupied;
+            this.maxChainLength = maxChainLength;
+        }
+
+        private double averageChainLength() {
+            return (double) KEYS / occupied;
+        }
+
+        @Override
+        public String toString() {
+            return "average chain " + averageChainLength() + ", max chain " + maxChainLength;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package lib.tartard.mybatis.generator;
+
+import org.mybatis.generator.api.MyBatisGenerator;
+import org.mybatis.generator.config.Configuration;
+import org.mybatis.generator.config.xml.ConfigurationParser;
+import org.mybatis.generator.internal.DefaultShellCallback;
+
+import javax.tools.*;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Run the generator with the plugins under test on an in-memory H2 database, and compile the generated code.
+ *
+ * @author Alexandre Hausherr
+ */
+final class GeneratorTestSupport {
+
+    static final String TARGET_PACKAGE = "test.model";
+
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    private final List<String> ddl = new ArrayList<>();
+
+    private final StringBuilder plugins = new StringBuilder();
+
+    private final StringBuilder modelProperties = new StringBuilder();
+
+    private final StringBuilder tables = new StringBuilder();
+
+    private String defaultModelType = "conditional";
+
+    private String clientType;
+
+
+    GeneratorTestSupport ddl(String statement) {
+        ddl.add(statement);
+        return this;
+    }
+
+    /**
+     * Add a plugin, with its properties given as name and value pairs.
+     * @param type
+     * @param properties
+     * @return
+     */
+    GeneratorTestSupport plugin(Class<?> type, String... properties) {
+        plugins.append("<plugin type=\"").append(type.getName()).append("\">");
+        appendProperties(plugins, properties);
+        plugins.append("</plugin>");
+        return this;
+    }
+
+    GeneratorTestSupport modelProperty(String name, String value) {
+        appendProperties(modelProperties, name, value);
+        return this;
+    }
+
+    GeneratorTestSupport defaultModelType(String defaultModelType) {
+        this.defaultModelType = defaultModelType;
+        return this;
+    }
+
+    /**
+     * Generate a client of the given type, no client is generated by default.
+     * @param clientType
+     * @return
+     */
+    GeneratorTestSupport clientType(String clientType) {
+        this.clientType = clientType;
+        return this;
+    }
+
+    /**
+     * Add a table, with its properties given as name and value pairs.
+     * @param tableName
+     * @param properties
+     * @return
+     */
+    GeneratorTestSupport table(String tableName, String... properties) {
+        tables.append("<table tableName=\"").append(tableName).append("\">");
+        appendProperties(tables, properties);
+        tables.append("</table>");
+        return this;
+    }
+
+    /**
+     * Add a child element, such as a generatedKey or a columnOverride, to the last table.
+     * @param element
+     * @return
+     */
+    GeneratorTestSupport tableElement(String element) {
+        tables.insert(tables.lastIndexOf("</table>"), element);
+        return this;
+    }
+
+    private static void appendProperties(StringBuilder sb, String... properties) {
+        for(int i = 0; i < properties.length; i += 2) {
+            sb.append("<property name=\"").append(properties[i]).append("\" value=\"").append(properties[i + 1]).append("\"/>");
+        }
+    }
+
+    /**
+     * Create the tables and generate the code in the given directory.
+     * @param directory
+     * @return
+     * @throws Exception
+     */
+    Generated generate(Path directory) throws Exception {
+        String url = "jdbc:h2:mem:generator" + DATABASE_COUNTER.incrementAndGet();
+        Path javaDirectory = Files.createDirectories(directory.resolve("java"));
+        Path resourcesDirectory = Files.createDirectories(directory.resolve("resources"));
+        String xml = "<!DOCTYPE generatorConfiguration PUBLIC \"-//mybatis.org//DTD MyBatis Generator Configuration 1.0//EN\""
+                + " \"http://mybatis.org/dtd/mybatis-generator-config_1_0.dtd\">"
+                + "<generatorConfiguration>"
+                + "<context id=\"test\" targetRuntime=\"MyBatis3\" defaultModelType=\"" + defaultModelType + "\">"
+                + plugins
+                + "<commentGenerator><property name=\"suppressAllComments\" value=\"true\"/></commentGenerator>"
+                + "<jdbcConnection driverClass=\"org.h2.Driver\" connectionURL=\"" + url + "\" userId=\"sa\" password=\"\"/>"
+                + "<javaModelGenerator targetPackage=\"" + TARGET_PACKAGE + "\" targetProject=\"" + javaDirectory + "\">" + modelProperties + "</javaModelGenerator>"
+                + "<sqlMapGenerator targetPackage=\"" + TARGET_PACKAGE + "\" targetProject=\"" + resourcesDirectory + "\"/>"
+                + (clientType == null ? "" : "<javaClientGenerator type=\"" + clientType + "\" targetPackage=\"" + TARGET_PACKAGE + "\" targetProject=\"" + javaDirectory + "\"/>")
+                + tables
+                + "</context>"
+                + "</generatorConfiguration>";
+
+        List<String> warnings = new ArrayList<>();
+        // the connection keeps the in-memory database alive during the generation
+        try(Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            try(Statement statement = connection.createStatement()) {
+                for(String sql : ddl) {
+                    statement.execute(sql);
+                }
+            }
+            Configuration configuration = new ConfigurationParser(warnings)
+                    .parseConfiguration(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+            new MyBatisGenerator(configuration, new DefaultShellCallback(true), warnings).generate(null);
+        }
+        return new Generated(directory, javaDirectory, resourcesDirectory, warnings);
+    }
+
+
+    /**
+     * Result of a generation.
+     */
+    static final class Generated {
+
+        private final Path directory;
+
+        private final Path javaDirectory;
+
+        private final Path resourcesDirectory;
+
+        private final List<String> warnings;
+
+        private Generated(Path directory, Path javaDirectory, Path resourcesDirectory, List<String> warnings) {
+            this.directory = directory;
+            this.javaDirectory = javaDirectory;
+            this.resourcesDirectory = resourcesDirectory;
+            this.warnings = warnings;
+        }
+
+        List<String> getWarnings() {
+            return warnings;
+        }
+
+        Path getResourcesDirectory() {
+            return resourcesDirectory;
+        }
+
+        /**
+         * Returns the source of a generated class of the target package.
+         * @param simpleName
+         * @return
+         * @throws IOException
+         */
+        String source(String simpleName) throws IOException {
+            Path path = javaDirectory.resolve(TARGET_PACKAGE.replace('.', File.separatorChar)).resolve(simpleName + ".java");
+            return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Compile the generated code, failing with the compiler messages if it does not compile, and returns a class
+         * loader of the compiled classes.
+         * @return
+         * @throws IOException
+         */
+        ClassLoader compile() throws IOException {
+            Path classesDirectory = Files.createDirectories(directory.resolve("classes"));
+            List<File> sources;
+            try(Stream<Path> paths = Files.walk(javaDirectory)) {
+                sources = paths.filter(path -> path.toString().endsWith(".java")).map(Path::toFile).collect(Collectors.toList());
+            }
+
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+                List<String> options = new ArrayList<>();
+                options.add("-classpath");
+                // surefire runs the tests from a manifest only jar, the actual class path is in its own property
+                options.add(System.getProperty("surefire.test.class.path", System.getProperty("java.class.path")));
+                options.add("-d");
+                options.add(classesDirectory.toString());
+                options.add("-nowarn");
+                boolean success = compiler.getTask(null, fileManager, diagnostics, options, null,
+                        fileManager.getJavaFileObjectsFromFiles(sources)).call();
+                if(!success) {
+                    throw new AssertionError("Generated code does not compile:\n" + diagnostics.getDiagnostics().stream()
+                            .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                            .map(Object::toString)
+                            .collect(Collectors.joining("\n")));
+                }
+            }
+            return new URLClassLoader(new URL[] { classesDirectory.toUri().toURL(), resourcesDirectory.toUri().toURL() },
+                    GeneratorTestSupport.class.getClassLoader());
+        }
+    }
+}
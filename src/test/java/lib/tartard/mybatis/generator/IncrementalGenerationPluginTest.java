@@ -0,0 +1,98 @@
+package lib.tartard.mybatis.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Alexandre Hausherr
+ */
+public class IncrementalGenerationPluginTest {
+
+    private static final String MARKER = "// unchanged since the first run\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void unchangedTablesAreSkipped() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Path indexFile = directory.resolve("generator.index");
+        Path javaDirectory = directory.resolve("java").resolve(GeneratorTestSupport.TARGET_PACKAGE.replace('.', '/'));
+
+        GeneratorTestSupport.Generated first = generate(indexFile, "CREATE TABLE customer (id INT PRIMARY KEY, name VARCHAR(20))")
+                .generate(directory);
+        assertTrue(Files.isRegularFile(indexFile));
+        assertTrue(Files.isRegularFile(javaDirectory.resolve("StringPool.java")));
+        for(String name : new String[] { "Product.java", "Customer.java", "StringPool.java" }) {
+            Files.write(javaDirectory.resolve(name), MARKER.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        }
+        Files.delete(javaDirectory.resolve("StringPool.java"));
+        assertTrue(first.source("Customer").endsWith(MARKER));
+
+        GeneratorTestSupport.Generated second = generate(indexFile, "CREATE TABLE customer (id INT PRIMARY KEY, name VARCHAR(20), email VARCHAR(50))")
+                .generate(directory);
+        assertTrue(second.source("Product").endsWith(MARKER));
+        assertFalse(second.source("Customer").endsWith(MARKER));
+        assertTrue(second.source("Customer").contains("private String email;"));
+        // the context level files of the other plugins are generated even if no table uses them in this run
+        assertFalse(second.source("StringPool").endsWith(MARKER));
+        // the generator reports each existing file it overwrites
+        assertEquals(second.getWarnings().toString(), 2, second.getWarnings().size());
+        assertTrue(second.getWarnings().stream().allMatch(warning -> warning.contains("Customer")));
+        second.compile();
+    }
+
+    @Test
+    public void forceRegeneratesAllTables() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        Path indexFile = directory.resolve("generator.index");
+        Path product = directory.resolve("java").resolve(GeneratorTestSupport.TARGET_PACKAGE.replace('.', '/')).resolve("Product.java");
+
+        generate(indexFile, "CREATE TABLE customer (id INT PRIMARY KEY)").generate(directory);
+        Files.write(product, MARKER.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        new GeneratorTestSupport()
+                .ddl("CREATE TABLE product (id INT PRIMARY KEY, label VARCHAR(20))")
+                .ddl("CREATE TABLE customer (id INT PRIMARY KEY)")
+                .plugin(IncrementalGenerationPlugin.class, "indexFile", indexFile.toString(), "force", "true")
+                .plugin(StringInternPlugin.class, "maxLength", "20")
+                .table("PRODUCT")
+                .table("CUSTOMER")
+                .generate(directory);
+        assertFalse(new String(Files.readAllBytes(product), StandardCharsets.UTF_8).endsWith(MARKER));
+    }
+
+    @Test
+    public void pluginDeclaredAfterAnotherOneIsReported() throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl("CREATE TABLE product (id INT PRIMARY KEY)")
+                .plugin(StringInternPlugin.class, "maxLength", "20")
+                .plugin(IncrementalGenerationPlugin.class, "indexFile", folder.getRoot().toPath().resolve("generator.index").toString())
+                .table("PRODUCT")
+                .generate(folder.getRoot().toPath());
+        assertEquals(1, generated.getWarnings().size());
+        assertTrue(generated.getWarnings().get(0).startsWith("IncrementalGenerationPlugin: should be declared before "
+                + StringInternPlugin.class.getName()));
+    }
+
+    private static GeneratorTestSupport generate(Path indexFile, String customerDdl) {
+        return new GeneratorTestSupport()
+                .ddl("CREATE TABLE product (id INT PRIMARY KEY, label VARCHAR(20))")
+                .ddl(customerDdl)
+                .plugin(IncrementalGenerationPlugin.class, "indexFile", indexFile.toString())
+                .plugin(StringInternPlugin.class, "maxLength", "20")
+                .table("PRODUCT")
+                .table("CUSTOMER");
+    }
+}
@@ -0,0 +1,98 @@
+package lib.tartard.mybatis.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Alexandre Hausherr
+ */
+public class InstrumentationPluginTest {
+
+    private static final String DDL = "CREATE TABLE item (id INT PRIMARY KEY, email VARCHAR(100) NOT NULL, label VARCHAR(20))";
+
+    private static final String SQL_MAP = GeneratorTestSupport.TARGET_PACKAGE.replace('.', '/') + "/ItemMapper.xml";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void wrappedPluginsGenerateTheSameCode() throws Exception {
+        Path reportFile = folder.getRoot().toPath().resolve("report.csv");
+        GeneratorTestSupport.Generated wrapped = new GeneratorTestSupport()
+                .ddl(DDL)
+                .plugin(InstrumentationPlugin.class,
+                        "plugins", ValidationAnnotationPlugin.class.getName() + ", " + CursorSelectPlugin.class.getName()
+                                + ", " + TableCachePlugin.class.getName(),
+                        "ValidationAnnotationPlugin.generateValidateMethod", "true",
+                        "TableCachePlugin.cache_size", "64",
+                        "reportFile", reportFile.toString())
+                .clientType("XMLMAPPER")
+                .table("ITEM")
+                .generate(folder.newFolder("wrapped").toPath());
+        GeneratorTestSupport.Generated plain = new GeneratorTestSupport()
+                .ddl(DDL)
+                .plugin(ValidationAnnotationPlugin.class, "generateValidateMethod", "true")
+                .plugin(CursorSelectPlugin.class)
+                .plugin(TableCachePlugin.class, "cache_size", "64")
+                .clientType("XMLMAPPER")
+                .table("ITEM")
+                .generate(folder.newFolder("plain").toPath());
+
+        assertTrue(wrapped.getWarnings().isEmpty());
+        for(String simpleName : new String[] { "Item", "ItemExample", "ItemMapper" }) {
+            assertEquals(simpleName, plain.source(simpleName), wrapped.source(simpleName));
+        }
+        String sqlMap = read(wrapped.getResourcesDirectory().resolve(SQL_MAP));
+        assertEquals(read(plain.getResourcesDirectory().resolve(SQL_MAP)), sqlMap);
+        assertTrue(sqlMap.contains("<cache size=\"64\""));
+        assertTrue(wrapped.source("Item").contains("public List<String> validate()"));
+        assertTrue(wrapped.source("ItemMapper").contains("selectByExampleWithCursor"));
+        wrapped.compile();
+
+        List<String> report = Files.readAllLines(reportFile, StandardCharsets.UTF_8);
+        assertEquals("context,plugin,table,hook,calls,nanos,methods,fields,annotations,imports,elements,attributes", report.get(0));
+        String validation = "test," + ValidationAnnotationPlugin.class.getName() + ",ITEM,";
+        String cursor = "test," + CursorSelectPlugin.class.getName() + ",ITEM,";
+        String cache = "test," + TableCachePlugin.class.getName() + ",ITEM,";
+        // one call per column: @NotNull on id, @NotBlank, @Size and @Email on email, @Size on label
+        assertEquals("3,0,0,5,4,0,0", counts(report, validation + "modelFieldGenerated"));
+        assertEquals("1,4,1,0,3,0,0", counts(report, validation + "modelBaseRecordClassGenerated"));
+        assertEquals("1,0,0,0,0,0,0", counts(report, validation + "sqlMapGenerated"));
+        assertEquals("1,2,0,0,2,0,0", counts(report, cursor + "clientGenerated"));
+        assertEquals("1,0,0,0,0,12,24", counts(report, cursor + "sqlMapDocumentGenerated"));
+        assertEquals("1,0,0,0,0,0,2", counts(report, cache + "sqlMapSelectByPrimaryKeyElementGenerated"));
+        assertEquals("1,0,0,0,0,1,1", counts(report, cache + "sqlMapDocumentGenerated"));
+        assertEquals("1,0,0,0,0,0,0", counts(report, cache + "sqlMapGenerated"));
+        assertEquals("1,0,0,0,0,0,0", counts(report, "test," + TableCachePlugin.class.getName() + ",*,contextGenerateAdditionalXmlFiles"));
+    }
+
+    /**
+     * Returns the calls and counts of a row of the report, without its time.
+     * @param report
+     * @param key context, plugin, table and hook of the row
+     * @return
+     */
+    private static String counts(List<String> report, String key) {
+        for(String row : report) {
+            if(row.startsWith(key + ",")) {
+                String[] values = row.substring(key.length() + 1).split(",", 3);
+                return values[0] + "," + values[2];
+            }
+        }
+        throw new AssertionError("No row " + key);
+    }
+
+    private static String read(Path path) throws Exception {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package lib.tartard.mybatis.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Alexandre Hausherr
+ */
+public class PrimitiveColumnTypePluginTest {
+
+    private static final String DDL = "CREATE TABLE measure ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+            + "ticket INT NOT NULL, "
+            + "quantity INT NOT NULL, "
+            + "ratio DOUBLE NOT NULL, "
+            + "active BOOLEAN NOT NULL, "
+            + "optional INT, "
+            + "version INT DEFAULT 0 NOT NULL, "
+            + "doubled INT AS quantity * 2 NOT NULL, "
+            + "boxed SMALLINT NOT NULL, "
+            + "label VARCHAR(10) NOT NULL)";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void alwaysSetColumnsArePrimitive() throws Exception {
+        GeneratorTestSupport.Generated generated = generate(false);
+        String source = generated.source("Measure");
+
+        assertTrue(source.contains("private int quantity;"));
+        assertTrue(source.contains("private double ratio;"));
+        assertTrue(source.contains("private boolean active;"));
+        assertTrue(source.contains("public void setQuantity(int quantity)"));
+        assertTrue(source.contains("public boolean isActive()"));
+        // nullable, auto increment, identity, default value, generated and overridden columns are kept boxed
+        assertTrue(source.contains("private Integer optional;"));
+        assertTrue(source.contains("private Long id;"));
+        assertTrue(source.contains("private Integer ticket;"));
+        assertTrue(source.contains("private Integer version;"));
+        assertTrue(source.contains("private Integer doubled;"));
+        assertTrue(source.contains("private Short boxed;"));
+        assertTrue(source.contains("private String label;"));
+        generated.compile();
+    }
+
+    @Test
+    public void columnsWithDefaultAreIncluded() throws Exception {
+        String source = generate(true).source("Measure");
+
+        assertTrue(source.contains("private int version;"));
+        // H2 reports a default value for the auto increment and generated columns, which only their own exclusion keeps boxed here
+        assertTrue(source.contains("private Long id;"));
+        assertTrue(source.contains("private Integer doubled;"));
+        assertTrue(source.contains("private Integer ticket;"));
+    }
+
+    private GeneratorTestSupport.Generated generate(boolean includeColumnsWithDefault) throws Exception {
+        return new GeneratorTestSupport()
+                .ddl(DDL)
+                .plugin(PrimitiveColumnTypePlugin.class, "includeColumnsWithDefault", String.valueOf(includeColumnsWithDefault))
+                .table("MEASURE")
+                .tableElement("<generatedKey column=\"TICKET\" sqlStatement=\"JDBC\" identity=\"true\"/>")
+                .tableElement("<columnOverride column=\"BOXED\"><property name=\"primitive\" value=\"false\"/></columnOverride>")
+                .generate(folder.getRoot().toPath());
+    }
+}
@@ -0,0 +1,90 @@
+package lib.tartard.mybatis.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Constructor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Alexandre Hausherr
+ */
+public class StringInternPluginTest {
+
+    private static final String DDL = "CREATE TABLE country (id INT PRIMARY KEY, code VARCHAR(2), name VARCHAR(50))";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void settersInternShortValues() throws Exception {
+        ClassLoader classLoader = new GeneratorTestSupport()
+                .ddl(DDL)
+                .plugin(StringInternPlugin.class, "maxLength", "10", "poolSize", "100")
+                .table("COUNTRY")
+                .generate(folder.getRoot().toPath())
+                .compile();
+        Class<?> recordClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".Country");
+        Class<?> poolClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".StringPool");
+        poolClass.getMethod("resetStatistics").invoke(null);
+
+        Object first = recordClass.getConstructor().newInstance();
+        recordClass.getMethod("setCode", String.class).invoke(first, new String("FR"));
+        recordClass.getMethod("setName", String.class).invoke(first, new String("France"));
+        assertEquals(0L, poolClass.getMethod("getHits").invoke(null));
+        assertEquals(1L, poolClass.getMethod("getMisses").invoke(null));
+
+        Object second = recordClass.getConstructor().newInstance();
+        recordClass.getMethod("setCode", String.class).invoke(second, new String("FR"));
+        recordClass.getMethod("setName", String.class).invoke(second, new String("France"));
+        assertEquals(1L, poolClass.getMethod("getHits").invoke(null));
+        assertEquals(1L, poolClass.getMethod("getMisses").invoke(null));
+
+        assertSame(recordClass.getMethod("getCode").invoke(first), recordClass.getMethod("getCode").invoke(second));
+        // longer than maxLength
+        assertNotSame(recordClass.getMethod("getName").invoke(first), recordClass.getMethod("getName").invoke(second));
+        assertEquals(recordClass.getMethod("getName").invoke(first), recordClass.getMethod("getName").invoke(second));
+
+        recordClass.getMethod("setCode", String.class).invoke(second, (Object) null);
+        assertNull(recordClass.getMethod("getCode").invoke(second));
+    }
+
+    @Test
+    public void constructorsInternOverriddenColumns() throws Exception {
+        ClassLoader classLoader = new GeneratorTestSupport()
+                .ddl(DDL)
+                .plugin(StringInternPlugin.class, "maxLength", "10")
+                .modelProperty("immutable", "true")
+                .table("COUNTRY")
+                .tableElement("<columnOverride column=\"CODE\"><property name=\"intern\" value=\"false\"/></columnOverride>")
+                .tableElement("<columnOverride column=\"NAME\"><property name=\"intern\" value=\"true\"/></columnOverride>")
+                .generate(folder.getRoot().toPath())
+                .compile();
+        Class<?> recordClass = classLoader.loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".Country");
+        Constructor<?> constructor = recordClass.getConstructor(Integer.class, String.class, String.class);
+
+        Object first = constructor.newInstance(1, new String("FR"), new String("France"));
+        Object second = constructor.newInstance(1, new String("FR"), new String("France"));
+        assertNotSame(recordClass.getMethod("getCode").invoke(first), recordClass.getMethod("getCode").invoke(second));
+        assertSame(recordClass.getMethod("getName").invoke(first), recordClass.getMethod("getName").invoke(second));
+    }
+
+    @Test
+    public void poolSizeIsLimited() throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl(DDL)
+                .plugin(StringInternPlugin.class, "maxLength", "10", "poolSize", String.valueOf((1 << 30) + 1))
+                .table("COUNTRY")
+                .generate(folder.getRoot().toPath());
+        assertTrue(generated.getWarnings().contains("StringInternPlugin: poolSize must be a positive integer, at most " + (1 << 30)));
+        assertFalse(generated.source("Country").contains("StringPool"));
+    }
+}
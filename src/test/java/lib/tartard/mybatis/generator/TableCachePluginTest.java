@@ -0,0 +1,83 @@
+package lib.tartard.mybatis.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Alexandre Hausherr
+ */
+public class TableCachePluginTest {
+
+    private static final String[] DDL = {
+            "CREATE TABLE category (id INT PRIMARY KEY, name VARCHAR(20))",
+            "CREATE TABLE item (id INT PRIMARY KEY, category_id INT)",
+            "CREATE TABLE tag (id INT PRIMARY KEY, label VARCHAR(20))"
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void cacheIsConfiguredPerTable() throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl(DDL[0]).ddl(DDL[1]).ddl(DDL[2])
+                .plugin(TableCachePlugin.class, "cache_size", "64", "cache_flushCache", "true")
+                .clientType("XMLMAPPER")
+                .table("CATEGORY")
+                .table("ITEM", "cache_ref", GeneratorTestSupport.TARGET_PACKAGE + ".CategoryMapper", "cache_useCache", "false")
+                .table("TAG", "cache_enabled", "false")
+                .generate(folder.getRoot().toPath());
+        assertTrue(generated.getWarnings().isEmpty());
+
+        // selectByExample, selectByPrimaryKey and countByExample
+        String category = sqlMap(generated, "CategoryMapper");
+        assertTrue(category.contains("<cache size=\"64\""));
+        assertFalse(category.contains("<cache-ref"));
+        assertEquals(3, occurrences(category, "useCache=\"true\""));
+        assertEquals(3, occurrences(category, "flushCache=\"true\""));
+
+        String item = sqlMap(generated, "ItemMapper");
+        assertTrue(item.contains("<cache-ref namespace=\"" + GeneratorTestSupport.TARGET_PACKAGE + ".CategoryMapper\""));
+        assertFalse(item.contains("<cache "));
+        assertEquals(3, occurrences(item, "useCache=\"false\""));
+        assertEquals(3, occurrences(item, "flushCache=\"true\""));
+
+        String tag = sqlMap(generated, "TagMapper");
+        assertFalse(tag.contains("<cache"));
+        assertFalse(tag.contains("useCache"));
+        assertFalse(tag.contains("flushCache"));
+    }
+
+    @Test
+    public void annotatedMapperIsReported() throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl(DDL[0])
+                .plugin(TableCachePlugin.class)
+                .clientType("ANNOTATEDMAPPER")
+                .table("CATEGORY")
+                .generate(folder.getRoot().toPath());
+        assertTrue(generated.getWarnings().contains("TableCachePlugin: the annotated mappers of context test have no sql map, no cache is generated"));
+    }
+
+    private static String sqlMap(GeneratorTestSupport.Generated generated, String simpleName) throws Exception {
+        return new String(Files.readAllBytes(generated.getResourcesDirectory()
+                .resolve(GeneratorTestSupport.TARGET_PACKAGE.replace('.', '/') + "/" + simpleName + ".xml")), StandardCharsets.UTF_8);
+    }
+
+    private static int occurrences(String text, String part) {
+        int count = 0;
+        for(int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + part.length())) {
+            count++;
+        }
+        return count;
+    }
+}
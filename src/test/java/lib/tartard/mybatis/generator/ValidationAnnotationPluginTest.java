@@ -0,0 +1,79 @@
+package lib.tartard.mybatis.generator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Alexandre Hausherr
+ */
+public class ValidationAnnotationPluginTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+
+    @Test
+    public void emailColumnsAreChecked() throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl("CREATE TABLE contact (id INT PRIMARY KEY, email VARCHAR(100), e_mail VARCHAR(100), mailbox VARCHAR(100))")
+                .plugin(ValidationAnnotationPlugin.class, "generateValidateMethod", "true")
+                .table("CONTACT")
+                .generate(folder.getRoot().toPath());
+
+        String source = generated.source("Contact");
+        assertTrue(source.contains("@Email\n    private String email;"));
+        assertTrue(source.contains("@Email\n    private String eMail;"));
+        assertFalse(source.contains("@Email\n    private String mailbox;"));
+
+        Class<?> recordClass = generated.compile().loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".Contact");
+        Object record = recordClass.getConstructor().newInstance();
+        recordClass.getMethod("setId", Integer.class).invoke(record, 1);
+        recordClass.getMethod("setEmail", String.class).invoke(record, "nobody");
+        recordClass.getMethod("seteMail", String.class).invoke(record, "somebody@example.com");
+        recordClass.getMethod("setMailbox", String.class).invoke(record, "nobody");
+        assertEquals(Collections.singletonList("email must be a well-formed email address"), recordClass.getMethod("validate").invoke(record));
+
+        recordClass.getMethod("seteMail", String.class).invoke(record, "@example.com");
+        List<?> violations = (List<?>) recordClass.getMethod("validate").invoke(record);
+        assertEquals(Arrays.asList("email must be a well-formed email address", "eMail must be a well-formed email address"), violations);
+
+        recordClass.getMethod("setEmail", String.class).invoke(record, "");
+        for(String invalid : Arrays.asList("a@", "a@@b", "a@example.com ", "a b@example.com", "a..b@example.com", "a@-example.com")) {
+            recordClass.getMethod("seteMail", String.class).invoke(record, invalid);
+            assertEquals(invalid, Collections.singletonList("eMail must be a well-formed email address"), recordClass.getMethod("validate").invoke(record));
+        }
+        for(String valid : Arrays.asList("a.b+c@example.com", "a@localhost", "a@my-example.co.uk", "\u00e9@\u00e9xample.com")) {
+            recordClass.getMethod("seteMail", String.class).invoke(record, valid);
+            assertEquals(valid, Collections.emptyList(), recordClass.getMethod("validate").invoke(record));
+        }
+    }
+
+    @Test
+    public void subclassesOverrideValidate() throws Exception {
+        GeneratorTestSupport.Generated generated = new GeneratorTestSupport()
+                .ddl("CREATE TABLE document (id INT PRIMARY KEY, email VARCHAR(100) NOT NULL, content BLOB)")
+                .plugin(ValidationAnnotationPlugin.class, "generateValidateMethod", "true")
+                .defaultModelType("hierarchical")
+                .table("DOCUMENT")
+                .generate(folder.getRoot().toPath());
+
+        assertFalse(generated.source("DocumentKey").contains("@Override"));
+        assertTrue(generated.source("Document").contains("@Override\n    public List<String> validate()"));
+        assertTrue(generated.source("DocumentWithBLOBs").contains("@Override\n    public List<String> validate()"));
+
+        Class<?> recordClass = generated.compile().loadClass(GeneratorTestSupport.TARGET_PACKAGE + ".DocumentWithBLOBs");
+        Object record = recordClass.getConstructor().newInstance();
+        recordClass.getMethod("setId", Integer.class).invoke(record, 1);
+        recordClass.getMethod("setEmail", String.class).invoke(record, "a@");
+        assertEquals(Collections.singletonList("email must be a well-formed email address"), recordClass.getMethod("validate").invoke(record));
+    }
+}